@@ -25,55 +25,19 @@ public class CategoryPrimary_C {
     @Autowired
     Garden_R garden_repo;
 
-    public void addPrimaryCategories(Garden garden) {
-
-        CategoryPrimary category_primary = new CategoryPrimary("Bin");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Root");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Nightshade");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Salad Green");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Cruciferous");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
+    /* Primary categories created with every garden */
+    private static final String[] DEFAULT_PRIMARY_CATEGORIES = { "Bin", "Root", "Nightshade", "Salad Green",
+            "Cruciferous", "Alliums", "Podded", "Tubers", "Stem", "Leafy Green", "Brassica", "Solanaceous" };
 
-        category_primary = new CategoryPrimary("Alliums");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Podded");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Tubers");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Stem");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Leafy Green");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
-
-        category_primary = new CategoryPrimary("Brassica");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
+    /* The categories are stamped with the revision of the garden creation */
+    public void addPrimaryCategories(Garden garden) {
 
-        category_primary = new CategoryPrimary("Solanaceous");
-        category_primary.setGarden(garden);
-        category_primary_repo.save(category_primary);
+        for (String name : DEFAULT_PRIMARY_CATEGORIES) {
+            CategoryPrimary category_primary = new CategoryPrimary(name);
+            category_primary.setGarden(garden);
+            category_primary.setRevision(garden.getRevision());
+            category_primary_repo.save(category_primary);
+        }
         return;
     }
 
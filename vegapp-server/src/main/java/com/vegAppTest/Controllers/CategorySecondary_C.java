@@ -1,7 +1,5 @@
 package com.vegAppTest.Controllers;
 
-import java.util.Optional;
-
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
@@ -13,13 +11,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 /*   Entities   */
 import com.vegAppTest.Entities.CategorySecondary;
-import com.vegAppTest.Entities.Garden;
 import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Entities.Tombstone;
 import com.vegAppTest.Entities.Veggie;
 /*   Repositories   */
 import com.vegAppTest.Repositories.CategorySecondary_R;
@@ -27,7 +24,10 @@ import com.vegAppTest.Repositories.Garden_R;
 import com.vegAppTest.Repositories.Veggie_R;
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Services.NameResolutionService;
+import com.vegAppTest.Services.RevisionService;
 
+import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.Size;
 
 @RestController
@@ -46,14 +46,20 @@ public class CategorySecondary_C {
     @Autowired
     Veggie_R veggie_repo;
 
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    NameResolutionService name_resolution_service;
+
     /* ------------------------------ POST METHODS -------------------- */
     /* To create a category */
     @PostMapping("/categorySecondary/{garden_name}")
-    public ResponseEntity<CategorySecondary> createCat(@RequestHeader("Authorization") String token,
-            @RequestBody CategorySecondary category_secondary,
+    @Transactional
+    public ResponseEntity<CategorySecondary> createCat(@RequestBody CategorySecondary category_secondary,
             @PathVariable @Size(max = 255) String garden_name) throws NotFoundException {
 
-        Gardener gardener = controller_servcice.getGardenerFromToken(token);
+        Gardener gardener = controller_servcice.getGardener();
 
         // Verify is Category body is correctly initialized
         if (category_secondary.getName() == null || garden_name == null) {
@@ -61,25 +67,22 @@ public class CategorySecondary_C {
         }
 
         // Verify that this garden exists for this User.
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
-        if (garden.isPresent()) {
-
-            /* Check if the category exists */
-            Optional<CategorySecondary> category_secondary_opt = category_secondary_repo
-                    .findByGardenerIdAndCategoryName(
-                            controller_servcice
-                                    .getGardenerFromToken(token)
-                                    .getId(),
-                            category_secondary.getName());
-            if (category_secondary_opt.isPresent()) {
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        if (garden_id != null) {
+
+            /* Check if the category exists in that garden */
+            if (name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_secondary.getName()) != null) {
 
                 // If it is present, we send an error code stating that it already exists.
                 return new ResponseEntity<>(new CategorySecondary(), HttpStatus.CONFLICT);
 
             }
             // if not
-            category_secondary.setGarden(garden.get());
+            category_secondary.setGarden(garden_repo.getReferenceById(garden_id));
+            category_secondary.setRevision(revision_service.next(gardener.getId(), garden_id));
             category_secondary_repo.save(category_secondary);
+            name_resolution_service.invalidate(gardener.getId());
             return new ResponseEntity<>(category_secondary, HttpStatus.OK);
         }
         // If the garden doesnt exist, return a null
@@ -89,34 +92,33 @@ public class CategorySecondary_C {
 
     /* ------------------------------ PUT METHODS -------------------- */
     @PutMapping("/categorySecondary/{garden_name}/{category_name}")
-    ResponseEntity<CategorySecondary> modifyCat(@RequestHeader("Authorization") String token,
-            @RequestBody CategorySecondary category_secondary,
+    @Transactional
+    ResponseEntity<CategorySecondary> modifyCat(@RequestBody CategorySecondary category_secondary,
             @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String category_name) {
 
-        Gardener gardener = controller_servcice.getGardenerFromToken(token);
+        Gardener gardener = controller_servcice.getGardener();
 
         if (category_secondary.getName() == null || garden_name == null) {
             return new ResponseEntity<>(new CategorySecondary(), HttpStatus.BAD_REQUEST);
         }
         // Verify that this garden exists for this User.
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
-
-        if (garden.isPresent()) {
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
 
-            /* Check if the category exists */
-            Optional<CategorySecondary> category_secondary_opt = category_secondary_repo
-                    .findByGardenerIdAndCategoryName(
-                            controller_servcice
-                                    .getGardenerFromToken(token)
-                                    .getId(),
-                            category_name);
-            if (category_secondary_opt.isPresent()) {
+        if (garden_id != null) {
 
-                // If it is present, we send an error code stating that it already exists.
+            /* Check if the category exists in that garden */
+            Long category_secondary_id = name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_name);
+            if (category_secondary_id != null) {
 
-                category_secondary_repo.updatePropertyById(category_secondary_opt.get().getId(),
-                        category_secondary.getName(),
-                        category_secondary.getColor());
+                /* Set on the entity, which may already be managed by this transaction (a batch of /sync) */
+                CategorySecondary category_secondary_db = category_secondary_repo
+                        .getReferenceById(category_secondary_id);
+                category_secondary_db.setName(category_secondary.getName());
+                category_secondary_db.setColor(category_secondary.getColor());
+                category_secondary_db.setRevision(revision_service.next(gardener.getId(), garden_id));
+                category_secondary_repo.save(category_secondary_db);
+                name_resolution_service.invalidate(gardener.getId());
 
                 return new ResponseEntity<>(category_secondary, HttpStatus.OK);
 
@@ -130,23 +132,31 @@ public class CategorySecondary_C {
 
     /* ------------------------------ DELETE METHODS -------------------- */
     @DeleteMapping("/categorySecondary/{category_name}/{garden_name}")
-    public ResponseEntity<CategorySecondary> delCat(@RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String category_name,
+    @Transactional
+    public ResponseEntity<CategorySecondary> delCat(@PathVariable @Size(max = 255) String category_name,
             @PathVariable @Size(max = 255) String garden_name) {
 
-        CategorySecondary parent = category_secondary_repo.findByGardenerIdCategoryNameGardenName(
-                controller_servcice.getGardenerFromToken(token).getId(),
-                category_name,
-                garden_name).orElse(null);
+        Long gardener_id = controller_servcice.getGardener().getId();
+        Long garden_id = name_resolution_service.gardenId(gardener_id, garden_name);
+        Long category_secondary_id = name_resolution_service.secondaryId(gardener_id, garden_name, category_name);
+        /* Already deleted */
+        if (category_secondary_id == null) {
+            return new ResponseEntity<>(new CategorySecondary(), HttpStatus.OK);
+        }
+        CategorySecondary parent = category_secondary_repo.getReferenceById(category_secondary_id);
 
+        Long revision = revision_service.next(gardener_id, garden_id);
         for (Veggie child : parent.getVeggies()) {
             // Remove or nullify the reference to the parent in the child entity
             child.setCategory_secondary(null); // Assuming there is a setter method to set the parent to
                                                // null
+            child.setRevision(revision);
             // Save the child entity to update the changes
             veggie_repo.save(child);
         }
         category_secondary_repo.delete(parent);
+        revision_service.recordDeletion(gardener_id, Tombstone.Type.CATEGORY_SECONDARY, parent.getId(), revision);
+        name_resolution_service.invalidate(gardener_id);
 
         return new ResponseEntity<>(new CategorySecondary(), HttpStatus.OK);
     }
@@ -15,19 +15,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /*   Entities   */
 import com.vegAppTest.Entities.Garden;
 import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Entities.Tombstone;
 
 /*   Repositories   */
 import com.vegAppTest.Repositories.Garden_R;
 
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Security.Service.GardenAccessService;
+import com.vegAppTest.Services.ETagService;
+import com.vegAppTest.Services.NameResolutionService;
+import com.vegAppTest.Services.RevisionService;
+
+import jakarta.transaction.Transactional;
 
 /*   Validation  */
 import jakarta.validation.constraints.Size;
@@ -45,25 +52,44 @@ public class Garden_C {
     @Autowired
     CategoryPrimary_C primary_C;
 
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    ETagService etag_service;
+
+    @Autowired
+    GardenAccessService garden_access_service;
+
+    @Autowired
+    NameResolutionService name_resolution_service;
+
     /* ------------------------------ GET METHODS -------------------- */
 
     /* To get all gardens from DB */
     @GetMapping("/garden")
-    public ResponseEntity<List<Garden>> getAllGarden(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<List<Garden>> getAllGarden(WebRequest request) {
+
+        Long gardener_id = controller_servcice.getGardener().getId();
 
-        return new ResponseEntity<>(garden_repo.findAllByGardenerId(
-                controller_servcice
-                        .getGardenerFromToken(token)
-                        .getId()),
-                HttpStatus.OK);
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGardener(request, gardener_id)) {
+            return null;
+        }
+
+        return new ResponseEntity<>(garden_repo.findAllByGardenerId(gardener_id), HttpStatus.OK);
     }
 
     /* To get a specific garden from DB */
     @GetMapping("/garden/{name}")
-    public ResponseEntity<Garden> getGarden(@RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String name) {
+    public ResponseEntity<Garden> getGarden(@PathVariable @Size(max = 255) String name, WebRequest request) {
 
-        Gardener gardener = controller_servcice.getGardenerFromToken(token);
+        Gardener gardener = controller_servcice.getGardener();
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGardener(request, gardener.getId())) {
+            return null;
+        }
 
         if (name == null) {
             return new ResponseEntity<>(new Garden(), HttpStatus.BAD_REQUEST);
@@ -81,31 +107,46 @@ public class Garden_C {
     /* ------------------------------ POST METHODS -------------------- */
     /* To create a garden */
     @PostMapping("/garden")
-    public Garden createGarden(@RequestHeader("Authorization") String token,
-            @RequestBody Garden garden) throws NotFoundException {
+    @Transactional
+    public Garden createGarden(@RequestBody Garden garden) throws NotFoundException {
 
-        Gardener gardener = controller_servcice.getGardenerFromToken(token);
+        Gardener gardener = controller_servcice.getGardener();
         if (garden.getName() == null) {
             return null;
         }
 /* Add primary categories */
         garden.setGardener(gardener);
+        garden.setRevision(revision_service.next(gardener.getId()));
         garden_repo.save(garden);
+        revision_service.stampGarden(gardener.getId(), garden.getId(), garden.getRevision());
         primary_C.addPrimaryCategories(garden);
+        garden_access_service.invalidate(gardener.getId());
+        name_resolution_service.invalidate(gardener.getId());
         return garden;
 
     }
 
     /* ------------------------------ PUT METHODS -------------------- */
     @PutMapping("/garden")
-    public ResponseEntity<Garden> changeGarden(@RequestHeader("Authorization") String token,
-            @RequestBody Garden garden) throws NotFoundException {
+    @Transactional
+    public ResponseEntity<Garden> changeGarden(@RequestBody Garden garden) throws NotFoundException {
 
+        /* Only the owner renames a garden */
+        GardenAccessService.Access access = controller_servcice.getAccess(garden.getId());
+        if (access != null && !access.isOwner()) {
+            return new ResponseEntity<>(new Garden(), HttpStatus.FORBIDDEN);
+        }
+        if (access == null) {
+            return new ResponseEntity<>(new Garden(), HttpStatus.NOT_FOUND);
+        }
         Optional<Garden> tmp = garden_repo.findById(garden.getId());
         if (tmp.isPresent()) {
             Garden updated_garden = tmp.get();
             updated_garden.setName(garden.getName());
+            updated_garden.setRevision(revision_service
+                    .next(controller_servcice.getGardener().getId(), updated_garden.getId()));
             garden_repo.save(updated_garden);
+            name_resolution_service.invalidate(controller_servcice.getGardener().getId());
             return new ResponseEntity<>(updated_garden, HttpStatus.OK);
         }
         return new ResponseEntity<>(new Garden(), HttpStatus.NOT_FOUND);
@@ -115,9 +156,22 @@ public class Garden_C {
     /* ------------------------------ DELETE METHODS -------------------- */
 
     @DeleteMapping("/garden/{garden_id}")
-    public void delGarden(@RequestHeader("Authorization") String token, @PathVariable Long garden_id) {
+    @Transactional
+    public ResponseEntity<Void> delGarden(@PathVariable Long garden_id) {
+        Long gardener_id = controller_servcice.getGardener().getId();
+        GardenAccessService.Access access = controller_servcice.getAccess(garden_id);
+        if (access == null || !access.isOwner()) {
+            /* Already deleted (a retried operation) is not an error, the garden of another gardener is */
+            return garden_repo.existsById(garden_id) ? new ResponseEntity<>(HttpStatus.FORBIDDEN)
+                    : ResponseEntity.ok().build();
+        }
         garden_repo.deleteById(garden_id);
-        return;
+        revision_service.recordDeletion(gardener_id, Tombstone.Type.GARDEN, garden_id,
+                revision_service.next(gardener_id));
+        revision_service.forgetGarden(gardener_id, garden_id);
+        garden_access_service.forgetGarden(garden_id);
+        name_resolution_service.invalidate(gardener_id);
+        return ResponseEntity.ok().build();
     }
 
 }
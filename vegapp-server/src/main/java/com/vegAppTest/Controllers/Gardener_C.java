@@ -1,17 +1,29 @@
 
 package com.vegAppTest.Controllers;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vegAppTest.Entities.Gardener;
 import com.vegAppTest.Repositories.Gardener_R;
+import com.vegAppTest.Security.AuthenticationResponse;
+import com.vegAppTest.Security.PasswordChangeRequest;
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Security.Service.GardenAccessService;
+import com.vegAppTest.Security.Service.JwtService;
+import com.vegAppTest.Security.Service.PasswordHashingService;
+import com.vegAppTest.Security.Service.PrincipalCacheService;
+import com.vegAppTest.Security.Service.TokenRevocationService;
+import com.vegAppTest.Services.InitCacheService;
 
 @RestController
 public class Gardener_C {
@@ -22,10 +34,28 @@ public class Gardener_C {
     @Autowired
     ControllerService controller_service;
 
+    @Autowired
+    PrincipalCacheService principal_cache_service;
+
+    @Autowired
+    TokenRevocationService token_revocation_service;
+
+    @Autowired
+    GardenAccessService garden_access_service;
+
+    @Autowired
+    PasswordHashingService password_hashing_service;
+
+    @Autowired
+    JwtService jwt_service;
+
+    @Autowired
+    InitCacheService init_cache_service;
+
     @GetMapping("/gardener")
-    public ResponseEntity<String> getUser(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<String> getUser() {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
+        Gardener gardener = controller_service.getGardener();
         return new ResponseEntity<>(
                 gardener.getFirst_name() + "," + gardener.getLast_name() + "," + gardener.getEmail(),
                 HttpStatus.NOT_FOUND);
@@ -33,9 +63,50 @@ public class Gardener_C {
     }
 
     @DeleteMapping("/gardener")
-    public void delUser(@RequestHeader("Authorization") String token) {
-        gardener_repo.deleteById(controller_service.getGardenerFromToken(token).getId());
+    public void delUser() {
+        Long gardener_id = controller_service.getGardener().getId();
+        gardener_repo.deleteById(gardener_id);
+        garden_access_service.invalidate(gardener_id);
+        /* Deleted without a revision : its cached snapshots are dropped here (the other instances miss on the revision) */
+        init_cache_service.invalidate(gardener_id);
+        String email = controller_service.getClaims().getSubject();
+        principal_cache_service.evict(email);
+        /* Its tokens must not be valid for a new gardener with the same email */
+        token_revocation_service.revokeSubject(email);
+
+    }
+
+    /* The token of the request is revoked */
+    @PostMapping("/gardener/logout")
+    public ResponseEntity<Void> logout() {
+        token_revocation_service.revoke(controller_service.getClaims());
+        return ResponseEntity.noContent().build();
+    }
+
+    /*
+     * The current password is checked, then every token of the gardener is
+     * revoked and a new one is returned. 403 if the password is wrong, 503 if
+     * the hashing queue is full (see PasswordHashingService)
+     */
+    @PutMapping("/gardener/password")
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> changePassword(
+            @RequestBody PasswordChangeRequest request) {
 
+        if (request.getNew_password() == null || request.getNew_password().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        String email = controller_service.getClaims().getSubject();
+        return password_hashing_service.change(email, request.getPassword(), request.getNew_password())
+                .thenApply(changed -> changed
+                        .map(value -> {
+                            token_revocation_service.revokeSubject(email);
+                            principal_cache_service.evict(email);
+                            return ResponseEntity.ok(AuthenticationResponse.builder()
+                                    .token(jwt_service.generateToken(value))
+                                    .build());
+                        })
+                        .orElseGet(() -> ResponseEntity.<AuthenticationResponse>status(HttpStatus.FORBIDDEN).build()))
+                .exceptionally(PasswordHashingService::whenRejected);
     }
 
 }
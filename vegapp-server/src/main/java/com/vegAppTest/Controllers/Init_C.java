@@ -1,123 +1,222 @@
 package com.vegAppTest.Controllers;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.vegAppTest.Entities.CategoryPrimary;
-/*   Entities   */
-import com.vegAppTest.Entities.Garden;
-import com.vegAppTest.Entities.Plot;
-import com.vegAppTest.Repositories.CategoryPrimary_R;
-import com.vegAppTest.Repositories.CategorySecondary_R;
-/*   Repositories   */
-import com.vegAppTest.Repositories.Garden_R;
-import com.vegAppTest.Repositories.Plant_R;
-import com.vegAppTest.Repositories.Plot_R;
-import com.vegAppTest.Repositories.Veggie_R;
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Security.Service.GardenAccessService;
+import com.vegAppTest.Services.ETagService;
+import com.vegAppTest.Services.InitCacheService;
+import com.vegAppTest.Services.InitSqliteService;
+import com.vegAppTest.Services.InitSnapshotService;
+import com.vegAppTest.Services.InitStreamWriter;
+import com.vegAppTest.Services.PayloadFormatService;
+import com.vegAppTest.Services.RevisionService;
+import com.vegAppTest.Wrapper.DeltaResponse;
 import com.vegAppTest.Wrapper.InitResponse;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+/*   Validation  */
+import jakarta.validation.constraints.Min;
+
 @RestController
+@Validated
 public class Init_C {
 
     @Autowired
-    Veggie_R veggie_repo;
+    InitSnapshotService init_snapshot_service;
+
+    @Autowired
+    InitStreamWriter init_stream_writer;
 
     @Autowired
-    CategorySecondary_R category_secondary_repo;
+    InitCacheService init_cache_service;
 
     @Autowired
-    CategoryPrimary_R category_primary_repo;
+    PayloadFormatService payload_format_service;
 
     @Autowired
-    Plot_R plot_repo;
+    InitSqliteService init_sqlite_service;
 
     @Autowired
-    Plant_R plant_repo;
+    ETagService etag_service;
 
     @Autowired
-    Garden_R garden_repo;
+    RevisionService revision_service;
 
     @Autowired
     ControllerService controller_service;
 
+    /* Revision of the returned snapshot, to use as "since" for the next delta */
+    public static final String REVISION_HEADER = "X-Revision";
+
+    private static final String SQLITE_CONTENT_TYPE = "application/vnd.sqlite3";
+
     @GetMapping("/init")
-    public ResponseEntity<InitResponse> retrieveAllData(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<byte[]> retrieveAllData(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String accept_encoding,
+            WebRequest request) {
 
-        InitResponse init_response = new InitResponse();
+        PayloadFormatService.Format format = payload_format_service.negotiate(accept);
+        Long gardener_id = controller_service.getGardener().getId();
 
-        /* Retrieve all garden based on the gardener id */
-        init_response.setGarden_list(
-                garden_repo.findAllByGardenerId(controller_service.getGardenerFromToken(token).getId()));
+        /* Committed revision, for the ETag and to check the cached body */
+        Long revision = revision_service.current(gardener_id);
 
-        /* Retrieve all primary & secondary cat & plots based on each garden id */
-        for (Garden garden_loop : init_response.getGarden_list()) {
-            init_response.addCategoryPrimary(category_primary_repo.findByGardenId(garden_loop.getId()),
-                    garden_loop.getId());
-            init_response.addCategorySecondary(category_secondary_repo.findByGardenId(garden_loop.getId()),
-                    garden_loop.getId());
-            init_response.addPlot(plot_repo.findByGardenId(garden_loop.getId()), garden_loop.getId());
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGardener(request, gardener_id, revision)) {
+            return null;
         }
 
-        /* Retrive all veggies from the primary category id */
-        for (CategoryPrimary category_loop : init_response.getCategory_primary_list()) {
-            init_response.addVegetable(veggie_repo.findByCategoryPrimaryId(category_loop.getId()),
-                    category_loop.getId(), category_loop.getGarden_id());
-        }
+        /* Retrieve all gardens, categories, veggies, plots and plants of the gardener */
+        InitCacheService.Entry entry = init_cache_service.getGardener(gardener_id, revision, format);
 
-        /* Retrieve all planted veggies from a plot id */
-        for (Plot plot_loop : init_response.getPlot_list()) {
-            init_response.addPlant(plant_repo.findByPlotId(plot_loop.getId()));
-        }
+        return cachedBody(format, entry, accept_encoding);
+    }
+
+    /* Delta mode (?since=revision) : only what was written or deleted after that revision */
+    @GetMapping(value = "/init", params = { "since", "!stream" })
+    public ResponseEntity<DeltaResponse> retrieveChanges(@RequestParam @Min(0) Long since) {
 
-        return new ResponseEntity<>(init_response, HttpStatus.OK);
+        return new ResponseEntity<>(
+                init_snapshot_service.loadChanges(controller_service.getGardener().getId(), since),
+                HttpStatus.OK);
+    }
+
+    /* A delta is not streamed, and the full snapshot is not sent to a client asking for a delta */
+    @GetMapping(value = "/init", params = { "since", "stream" })
+    public ResponseEntity<String> rejectStreamedChanges() {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("since and stream cannot be combined");
     }
 
     @GetMapping("/init/{garden_id}")
-    public ResponseEntity<InitResponse> retrieveGardenData(@RequestHeader("Authorization") String token,
-            @PathVariable Long garden_id) {
+    public ResponseEntity<?> retrieveGardenData(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String accept_encoding,
+            @PathVariable Long garden_id, WebRequest request) {
 
-        InitResponse init_response = new InitResponse();
+        PayloadFormatService.Format format = payload_format_service.negotiate(accept);
+        Long gardener_id = controller_service.getGardener().getId();
 
-        Optional<Garden> tmp = garden_repo.findById(garden_id);
-        if (!tmp.isPresent()) {
-            return new ResponseEntity<>(new InitResponse(), HttpStatus.NOT_FOUND);
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, gardener_id, garden_id)) {
+            return null;
         }
 
-        Garden garden = tmp.get();
-        if (!garden_repo.findOneByName(controller_service.getGardenerFromToken(token).getId(), garden.getName())
-                .isPresent()) {
+        /* The garden must exist and belong to the gardener */
+        InitCacheService.Entry entry = init_cache_service.getGarden(gardener_id, garden_id,
+                revision_service.current(gardener_id), format);
+        if (entry == null) {
             return new ResponseEntity<>(new InitResponse(), HttpStatus.NOT_FOUND);
         }
 
-        /* Retrieve all primary & secondary cat & plots based the garden id */
+        /* Retrieve all categories, veggies, plots and plants of the garden */
+        return cachedBody(format, entry, accept_encoding);
+    }
+
+    /*
+     * Streaming mode (?stream=true) : same body as above, but written to the
+     * response while the rows are read instead of being held in an InitResponse
+     */
+    @GetMapping(value = "/init", params = { "stream=true", "!since" })
+    public ResponseEntity<StreamingResponseBody> streamAllData(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        PayloadFormatService.Format format = payload_format_service.negotiate(accept);
+        Long gardener_id = controller_service.getGardener().getId();
+        Long revision = revision_service.current(gardener_id);
+
+        return ResponseEntity.ok()
+                .header(REVISION_HEADER, revision.toString())
+                .contentType(format.getMedia_type())
+                .body(output -> init_stream_writer.write(output, format, gardener_id, null));
+    }
+
+    @GetMapping(value = "/init/{garden_id}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamGardenData(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @PathVariable Long garden_id) {
 
-        init_response.addCategoryPrimary(category_primary_repo.findByGardenId(garden_id), garden_id);
-        init_response.addCategorySecondary(category_secondary_repo.findByGardenId(garden_id), garden_id);
-        init_response.addPlot(plot_repo.findByGardenId(garden_id), garden_id);
+        PayloadFormatService.Format format = payload_format_service.negotiate(accept);
 
-        /* Retrive all veggies from the primary category id */
-        for (CategoryPrimary category_loop : init_response.getCategory_primary_list()) {
-            init_response.addVegetable(veggie_repo.findByCategoryPrimaryId(category_loop.getId()),
-                    category_loop.getId(), category_loop.getGarden_id());
+        /* The garden must exist and belong to the gardener */
+        GardenAccessService.Access access = controller_service.getAccess(garden_id);
+        if (access == null || !access.isOwner()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(format.getMedia_type())
+                    .body(output -> init_stream_writer.writeEmpty(output, format));
         }
 
-        /* Retrieve all planted veggies from a plot id */
-        for (Plot plot_loop : init_response.getPlot_list()) {
-            init_response.addPlant(plant_repo.findByPlotId(plot_loop.getId()));
+        return ResponseEntity.ok()
+                .contentType(format.getMedia_type())
+                .body(output -> init_stream_writer.write(output, format, null, garden_id));
+    }
+
+    /*
+     * Ready-to-open SQLite database of the app with all the data of the gardener.
+     * The file is handed to Tomcat's sendfile when the connector supports it
+     * (plain NIO), otherwise copied with FileChannel.transferTo.
+     */
+    @GetMapping("/init/sqlite")
+    public void retrieveSqlite(HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        InitSqliteService.Bootstrap bootstrap = init_sqlite_service
+                .getGardener(controller_service.getGardener().getId());
+
+        try (FileChannel file = FileChannel.open(bootstrap.getFile())) {
+            long length = file.size();
+
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(SQLITE_CONTENT_TYPE);
+            response.setContentLengthLong(length);
+            response.setHeader(REVISION_HEADER, bootstrap.getRevision().toString());
+            response.setHeader("Content-Disposition", "attachment; filename=\"vegapp.db\"");
+
+            if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+                request.setAttribute("org.apache.tomcat.sendfile.filename",
+                        bootstrap.getFile().toAbsolutePath().toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+                request.setAttribute("org.apache.tomcat.sendfile.end", length);
+                return;
+            }
+
+            long position = 0;
+            var output = Channels.newChannel(response.getOutputStream());
+            while (position < length) {
+                position += file.transferTo(position, length - position, output);
+            }
         }
+    }
 
-        return new ResponseEntity<>(init_response, HttpStatus.OK);
+    /* The cached body is sent gzipped as is when the client accepts gzip (q > 0) */
+    private static ResponseEntity<byte[]> cachedBody(PayloadFormatService.Format format, InitCacheService.Entry entry,
+            String accept_encoding) {
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMedia_type())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .header(REVISION_HEADER, entry.getRevision().toString());
+
+        if (PayloadFormatService.acceptsGzip(accept_encoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.getGzip());
+        }
+        return response.body(entry.getBody());
     }
 
 }
@@ -1,7 +1,12 @@
 package com.vegAppTest.Controllers;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -9,26 +14,36 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.vegAppTest.Entities.Plot;
 import com.vegAppTest.Entities.Plant;
-import com.vegAppTest.Entities.Garden;
 import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Entities.Tombstone;
 
-import com.vegAppTest.Repositories.Garden_R;
 import com.vegAppTest.Repositories.Plot_R;
 import com.vegAppTest.Repositories.Plant_R;
 import com.vegAppTest.Repositories.Veggie_R;
 import com.vegAppTest.Security.Service.ControllerService;
-
+import com.vegAppTest.Security.Service.GardenAccessService;
+import com.vegAppTest.Services.NameResolutionService;
+import com.vegAppTest.Services.PlantLayoutService;
+import com.vegAppTest.Services.RevisionService;
+import com.vegAppTest.Wrapper.PlantPlacement;
+import com.vegAppTest.Wrapper.PlotDrawing;
+
+import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.Size;
 
 @RestController
 @Validated
 public class Plant_C {
 
+    /* Most plants a layout given to PUT /plants can hold */
+    private static final int MAX_LAYOUT_SIZE = 10000;
+
     public Plant_C() {
     }
 
@@ -45,30 +60,32 @@ public class Plant_C {
     ControllerService controller_service;
 
     @Autowired
-    Garden_R garden_repo;
+    RevisionService revision_service;
+
+    @Autowired
+    NameResolutionService name_resolution_service;
+
+    @Autowired
+    PlantLayoutService plant_layout_service;
 
     /* ------------------------------ POST METHODS -------------------- */
 
     @PostMapping("/plant/{plot_name}/{vegetable_location}/{veggie_name}/{garden_name}/{version}")
-    public ResponseEntity<Plant> createPlant(@RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String garden_name,
+    @Transactional
+    public ResponseEntity<Plant> createPlant(@PathVariable @Size(max = 255) String garden_name,
             @PathVariable @Size(max = 255) String vegetable_location, @PathVariable @Size(max = 255) String plot_name,
             @PathVariable @Size(max = 255) String veggie_name,
             @PathVariable Long version) {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
+        Gardener gardener = controller_service.getGardener();
 
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
-        if (!garden.isPresent()) {
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        if (garden_id == null) {
             return new ResponseEntity<>(new Plant(), HttpStatus.NOT_FOUND);
         }
-        Plot plot = null;
-        for(Plot plot_loop : garden.get().getPlots()){
-            if(plot_loop.getName().equals(plot_name) && plot_loop.getVersion() == version){
-                plot = plot_loop;
-                break;
-            }
-        }
+        /* Queried, garden.plots lacks the plots created earlier in the transaction (PUT /sync/batch) */
+        Plot plot = plot_repo.findByGardenAndNameAndVersion(garden_id, plot_name, version.intValue())
+                .orElse(null);
 
         if (plot == null){
             return new ResponseEntity<>(new Plant(), HttpStatus.NOT_FOUND);
@@ -77,28 +94,118 @@ public class Plant_C {
         Plant plant = new Plant();
         plant.setVegetable_location(vegetable_location);
 
-        Optional<Long> veggie = veggie_repo.findVeggieIdByVeggieNameAndGardenId(veggie_name, garden.get().getId());
+        Optional<Long> veggie = veggie_repo.findVeggieIdByVeggieNameAndGardenId(veggie_name, garden_id);
         if (!veggie.isPresent()) {
             System.out.println("VEGGIE PAS TROUVE   !!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!!");
             return new ResponseEntity<>(new Plant(), HttpStatus.NOT_FOUND);
         }
         plant.setPlotId(plot.getId());
         plant.setVegetableId(veggie.get());
+        plant.setRevision(revision_service.next(gardener.getId(), garden_id));
 
         plant_repo.save(plant);
 
         return new ResponseEntity<>(new Plant(), HttpStatus.CREATED);
     }
 
+    /* ------------------------------ PUT METHODS -------------------- */
+
+    /*
+     * Sets the whole layout of a plot version in one call, instead of one POST
+     * /plant per location : the body lists the plants ([{"location": "1.2",
+     * "veggie_name": "Carrot"}, ...]) and the plants of the plot that are not
+     * in it are deleted. The vegetables are resolved in one query, the changes
+     * are applied as JDBC batches (see PlantLayoutService). Returns the plot
+     * with its plants and their ids.
+     */
+    @PutMapping("/plants/{garden_name}/{plot_name}/{version}")
+    @Transactional
+    public ResponseEntity<?> setPlotLayout(@RequestBody List<PlantPlacement> layout,
+            @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String plot_name,
+            @PathVariable Long version) {
+
+        /* Manually check constraints for the layout */
+
+        if (layout.size() > MAX_LAYOUT_SIZE) {
+            return ResponseEntity.badRequest().body("A layout has at most " + MAX_LAYOUT_SIZE + " plants");
+        }
+
+        Set<String> veggie_names = new HashSet<>();
+        Set<String> locations = new HashSet<>();
+        for (PlantPlacement placement : layout) {
+            if (placement == null) {
+                return ResponseEntity.badRequest().body("A layout has no null plant");
+            }
+            if (placement.getLocation() == null || placement.getLocation().length() > 255
+                    || placement.getVeggie_name() == null || placement.getVeggie_name().length() > 255) {
+                return ResponseEntity.badRequest().body("Location and veggie_name should be between 0 and 255 characters");
+            }
+            if (!locations.add(placement.getLocation())) {
+                return ResponseEntity.badRequest().body("Location " + placement.getLocation() + " is given twice");
+            }
+            veggie_names.add(placement.getVeggie_name());
+        }
+
+        /* End of constraints */
+
+        Gardener gardener = controller_service.getGardener();
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        if (garden_id == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Plot plot = plot_repo.findByGardenAndNameAndVersion(garden_id, plot_name, version.intValue()).orElse(null);
+        if (plot == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        /* Name -> id, the oldest veggie when two categories have one of that name */
+        Map<String, Long> veggie_ids = new HashMap<>();
+        if (!veggie_names.isEmpty()) {
+            for (Object[] row : veggie_repo.findIdsByNamesAndGardenId(garden_id, veggie_names)) {
+                veggie_ids.putIfAbsent((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        List<String> unknown = new ArrayList<>(veggie_names);
+        unknown.removeAll(veggie_ids.keySet());
+        if (!unknown.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown vegetables : " + unknown);
+        }
+
+        Map<String, Long> locations_veggies = new HashMap<>();
+        for (PlantPlacement placement : layout) {
+            locations_veggies.put(placement.getLocation(), veggie_ids.get(placement.getVeggie_name()));
+        }
+        plant_layout_service.apply(gardener.getId(), garden_id, plot.getId(), locations_veggies);
+
+        return ResponseEntity.ok(PlotDrawing.fromRows(plot_repo.findDrawing(garden_id, plot_name, version.intValue())).get(0));
+    }
+
     /* ------------------------------ DELETE METHODS -------------------- */
-    /* Delete the plants of a plot */
+    /* Delete the plants of a plot, of a garden of the gardener */
     @DeleteMapping("/plants/{plot_id}")
-    public ResponseEntity<Plant> deletePlantsOfAPlot(@RequestHeader("Authorization") String token,
-            @PathVariable Long plot_id) {
+    @Transactional
+    public ResponseEntity<Plant> deletePlantsOfAPlot(@PathVariable Long plot_id) {
+
+        Plot plot = plot_repo.findById(plot_id).orElse(null);
+        /* Already deleted (a retried operation) is not an error */
+        if (plot == null) {
+            return new ResponseEntity<>(new Plant(), HttpStatus.OK);
+        }
+        Long garden_id = plot.getGarden().getId();
+        GardenAccessService.Access access = controller_service.getAccess(garden_id);
+        if (access == null || !access.isOwner()) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
 
         List<Plant> plants = plant_repo.findByPlotId(plot_id);
         if (!plants.isEmpty()) {
             plant_repo.deleteAll(plants);
+
+            Long gardener_id = controller_service.getGardener().getId();
+            Long revision = revision_service.next(gardener_id, garden_id);
+            for (Plant plant : plants) {
+                revision_service.recordDeletion(gardener_id, Tombstone.Type.PLANT, plant.getId(), revision);
+            }
         }
 
         return new ResponseEntity<>(new Plant(), HttpStatus.OK);
@@ -13,26 +13,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 /*   Entities   */
 import com.vegAppTest.Entities.Plot;
-import com.vegAppTest.Entities.Garden;
 import com.vegAppTest.Entities.Gardener;
-import com.vegAppTest.Entities.Plant;
-import com.vegAppTest.Entities.Veggie;
+import com.vegAppTest.Entities.Tombstone;
 
 /*   Repositories   */
 import com.vegAppTest.Repositories.Garden_R;
 import com.vegAppTest.Repositories.Plot_R;
-import com.vegAppTest.Repositories.Plant_R;
-import com.vegAppTest.Repositories.Veggie_R;
 
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
-
+import com.vegAppTest.Services.ETagService;
+import com.vegAppTest.Services.NameResolutionService;
+import com.vegAppTest.Services.PlotHistoryService;
+import com.vegAppTest.Services.RevisionService;
+import com.vegAppTest.Wrapper.PlotDrawing;
+import com.vegAppTest.Wrapper.PlotHistory;
+
+import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
@@ -52,33 +55,57 @@ public class Plot_C {
     Garden_R garden_repo;
 
     @Autowired
-    Plant_R plant_repo;
+    ControllerService controller_service;
+
+    @Autowired
+    RevisionService revision_service;
 
     @Autowired
-    Veggie_R veggie_repo;
+    ETagService etag_service;
+
     @Autowired
-    ControllerService controller_service;
+    NameResolutionService name_resolution_service;
+
+    @Autowired
+    PlotHistoryService plot_history_service;
 
     /* ------------------------------ GET METHODS -------------------- */
 
     // Get endpoints used to display the history on the web interface
 
+    /*
+     * To get the whole history of a garden in one request : its years, the plots
+     * created each year and their versions (instead of /plot_years, then
+     * /plot_names per year and /plot_versions per plot)
+     */
+    @GetMapping("/plot_history")
+    public ResponseEntity<List<PlotHistory>> getPlotHistory(@RequestParam Long garden_id, WebRequest request) {
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, controller_service.getGardener().getId(), garden_id)) {
+            return null;
+        }
+
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return ResponseEntity.ok(plot_history_service.getHistory(garden_id));
+    }
+
     /* To get the plot years of a garden */
     @GetMapping("/plot_years")
-    public ResponseEntity<List<Integer>> getPlotYearsByGarden(@RequestHeader("Authorization") String token,
-            @RequestParam Long garden_id) {
-
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        // Check if the garden belongs to that gardener
-        boolean gardenBelongsToGardener = false;
-        for (Garden garden : gardener.getGardens()) {
-            if (garden.getId() == garden_id) {
-                gardenBelongsToGardener = true;
-                break;
-            }
+    public ResponseEntity<List<Integer>> getPlotYearsByGarden(@RequestParam Long garden_id, WebRequest request) {
+
+        Gardener gardener = controller_service.getGardener();
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, gardener.getId(), garden_id)) {
+            return null;
         }
-        if (gardenBelongsToGardener == false) {
-            // The garden does not belong to that gardener
+
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
         List<Integer> years = plot_repo.findDistinctYears(garden_id);
@@ -92,19 +119,16 @@ public class Plot_C {
 
     /* To get the plot names of a garden for a year */
     @GetMapping("/plot_names")
-    public ResponseEntity<List<String>> getPlotNamesByYear(@RequestHeader("Authorization") String token,
-            @RequestParam @Min(1900) @Max(4000) int year, @RequestParam Long garden_id) {
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        // Check if the garden belongs to that gardener
-        boolean gardenBelongsToGardener = false;
-        for (Garden garden : gardener.getGardens()) {
-            if (garden.getId() == garden_id) {
-                gardenBelongsToGardener = true;
-                break;
-            }
+    public ResponseEntity<List<String>> getPlotNamesByYear(@RequestParam @Min(1900) @Max(4000) int year, @RequestParam Long garden_id, WebRequest request) {
+        Gardener gardener = controller_service.getGardener();
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, gardener.getId(), garden_id)) {
+            return null;
         }
-        if (gardenBelongsToGardener == false) {
-            // The garden does not belong to that gardener
+
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
         List<String> plot_names = plot_repo.findPlotNamesByYear(year, garden_id);
@@ -119,22 +143,19 @@ public class Plot_C {
     /* To get the plot versions of a garden for a year and a plot */
     @GetMapping("/plot_versions")
     public ResponseEntity<List<Integer>> getPlotVersionsByGardenIdYearAndName(
-            @RequestHeader("Authorization") String token,
             @RequestParam Long garden_id,
             @RequestParam @Min(1900) @Max(4000) int year,
-            @RequestParam @Size(max = 255) String name) {
-
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        // Check if the garden belongs to that gardener
-        boolean gardenBelongsToGardener = false;
-        for (Garden garden : gardener.getGardens()) {
-            if (garden.getId() == garden_id) {
-                gardenBelongsToGardener = true;
-                break;
-            }
+            @RequestParam @Size(max = 255) String name, WebRequest request) {
+
+        Gardener gardener = controller_service.getGardener();
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, gardener.getId(), garden_id)) {
+            return null;
         }
-        if (gardenBelongsToGardener == false) {
-            // The garden does not belong to that gardener
+
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
         List<Integer> versions = plot_repo.findPlotVersions(garden_id, year, name);
@@ -146,72 +167,85 @@ public class Plot_C {
         return ResponseEntity.ok(versions);
     }
 
-    /* To get the informations necessary to draw a specific plot */
+    /*
+     * To get the informations necessary to draw a specific plot, as the lines
+     * the web interface parses ("nb_of_lines: ...", "orientation: ...", then one
+     * line per plant). /plot/drawing returns the same as a PlotDrawing.
+     */
     @GetMapping("/plot/draw")
-    public ResponseEntity<List<String>> getPlotDrawingInfo(@RequestHeader("Authorization") String token,
-            @RequestParam Long garden_id,
+    public ResponseEntity<List<String>> getPlotDrawingInfo(@RequestParam Long garden_id,
             @RequestParam @Size(max = 255) String name,
-            @RequestParam @Min(0) @Max(500) int version) {
-
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        // Check if the garden belongs to that gardener
-        boolean gardenBelongsToGardener = false;
-        for (Garden garden : gardener.getGardens()) {
-            if (garden.getId() == garden_id) {
-                gardenBelongsToGardener = true;
-                break;
-            }
+            @RequestParam @Min(0) @Max(500) int version, WebRequest request) {
+
+        ResponseEntity<PlotDrawing> drawing = getPlotDrawing(garden_id, name, version, request);
+        if (drawing == null || drawing.getBody() == null) {
+            return drawing == null ? null : new ResponseEntity<>(drawing.getStatusCode());
         }
-        if (gardenBelongsToGardener == false) {
-            // The garden does not belong to that gardener
-            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        PlotDrawing plot = drawing.getBody();
+
+        /* Put everything in a list */
+        List<String> draw_info = new ArrayList<>();
+        draw_info.add("nb_of_lines: " + plot.getNb_of_lines());
+        draw_info.add("orientation: " + plot.getOrientation());
+        for (PlotDrawing.PlantDrawing plant : plot.getPlants()) {
+            draw_info.add("Plant ID: " + plant.getId() + ", Veggie ID: " + plant.getVeggie_id()
+                    + ", Veggie Name: " + plant.getVeggie_name() + ", Location: " + plant.getLocation());
         }
-        /* Find the plot */
-        Optional<Plot> plott = plot_repo.findByGardenAndNameAndVersion(garden_id, name, version);
-
-        if (plott.isPresent()) {
-            Plot plot = plott.get();
-            Long plot_id = plot.getId();
-
-            /* Retrieve nb_of_lines and orientation and plants */
-            String nb_of_lines = plot.getNb_of_lines();
-            int orientation = plot.getOrientation();
-            List<Plant> plants = plant_repo.findByPlotId(plot_id);
-
-            /* Put everything in a list */
-            List<String> draw_info = new ArrayList<>();
-            draw_info.add("nb_of_lines: " + nb_of_lines);
-            draw_info.add("orientation: " + orientation);
-            for (Plant plant : plants) {
-                /* Search the vegetable name */
-                Optional<Veggie> veggiee = veggie_repo.findById(plant.getVeggie_id());
-                String veggie_name = "";
-                if (veggiee.isPresent()) {
-                    Veggie veggie = veggiee.get();
-                    veggie_name = veggie.getName();
-                }
-
-                String plant_info = "Plant ID: " + plant.getId() + ", Veggie ID: " + plant.getVeggie_id()
-                        + ", Veggie Name: " + veggie_name + ", Location: " + plant.getVegetable_location();
-                draw_info.add(plant_info);
-            }
+        return ResponseEntity.ok(draw_info);
+    }
+
+    /* A plot version, its plants and the names of their vegetables, in one query */
+    @GetMapping("/plot/drawing")
+    public ResponseEntity<PlotDrawing> getPlotDrawing(@RequestParam Long garden_id,
+            @RequestParam @Size(max = 255) String name,
+            @RequestParam @Min(0) @Max(500) int version, WebRequest request) {
 
-            return ResponseEntity.ok(draw_info);
-        } else {
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, controller_service.getGardener().getId(), garden_id)) {
+            return null;
+        }
 
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        List<PlotDrawing> drawings = PlotDrawing.fromRows(plot_repo.findDrawing(garden_id, name, version));
+        if (drawings.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        return ResponseEntity.ok(drawings.get(0));
+    }
+
+    /*
+     * Batch : every version of the plots created in a year (of one plot if name
+     * is given), in one query, so that the history of a year is one request
+     */
+    @GetMapping("/plot/drawings")
+    public ResponseEntity<List<PlotDrawing>> getPlotDrawings(@RequestParam Long garden_id,
+            @RequestParam @Min(1900) @Max(4000) int year,
+            @RequestParam(required = false) @Size(max = 255) String name, WebRequest request) {
+
+        /* Not modified since the last call of the client */
+        if (etag_service.checkGarden(request, controller_service.getGardener().getId(), garden_id)) {
+            return null;
+        }
+
+        // Check if the garden belongs to that gardener, or is shared with it
+        if (controller_service.getAccess(garden_id) == null) {
+            return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        }
+        return ResponseEntity.ok(PlotDrawing.fromRows(plot_repo.findDrawingsByYear(garden_id, year, name)));
     }
     // end of history endpoints
 
     /* ------------------------------ POST METHODS -------------------- */
 
     @PostMapping("/plot/{garden_name}")
-    public ResponseEntity<?> createPlot(@RequestBody Plot plot, @RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String garden_name) {
+    @Transactional
+    public ResponseEntity<?> createPlot(@RequestBody Plot plot, @PathVariable @Size(max = 255) String garden_name) {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
+        Gardener gardener = controller_service.getGardener();
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
 
         /* Manually check constraints for Plot fields */
 
@@ -230,18 +264,19 @@ public class Plot_C {
         /* End of constraints */
 
         // If no garden -> cant create the plot
-        if (!garden.isPresent()) {
+        if (garden_id == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
 
-        Optional<Plot> plot_tmp = plot_repo.findByGardenAndNameAndVersion(garden.get().getId(), plot.getName(),
+        Optional<Plot> plot_tmp = plot_repo.findByGardenAndNameAndVersion(garden_id, plot.getName(),
                 plot.getVersion());
 
         if (plot_tmp.isPresent()) {
             return new ResponseEntity<>(new Plot(), HttpStatus.CONFLICT);
         }
 
-        plot.setGarden(garden.get());
+        plot.setGarden(garden_repo.getReferenceById(garden_id));
+        plot.setRevision(revision_service.next(gardener.getId(), garden_id));
         plot_repo.save(plot);
         return ResponseEntity.status(HttpStatus.CREATED).body(plot);
     }
@@ -249,10 +284,10 @@ public class Plot_C {
     /* ------------------------------ PUT METHODS -------------------- */
 
     @PutMapping("/plot/{garden_name}/{plot_name_old}")
-    public ResponseEntity<?> modifyPlot(@RequestBody Plot plot, @RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String plot_name_old) {
+    @Transactional
+    public ResponseEntity<?> modifyPlot(@RequestBody Plot plot, @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String plot_name_old) {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
+        Gardener gardener = controller_service.getGardener();
 
         /* Manually check constraints for Plot fields */
 
@@ -270,16 +305,16 @@ public class Plot_C {
 
         /* End of constraints */
 
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
         Plot plot_new = new Plot();
         String name = plot.getName();
 
         // If no garden -> cant create the plot
-        if (!garden.isPresent()) {
+        if (garden_id == null) {
             return new ResponseEntity<>(new Plot(), HttpStatus.NOT_FOUND);
         }
 
-        Optional<Plot> plot_old = plot_repo.findByGardenAndNameAndVersion(garden.get().getId(), plot_name_old,
+        Optional<Plot> plot_old = plot_repo.findByGardenAndNameAndVersion(garden_id, plot_name_old,
                 plot.getVersion());
 
         if (plot_old.isPresent()) {
@@ -287,6 +322,7 @@ public class Plot_C {
             plot_new = plot_old.get();
             plot_new.setName(name);
             plot_new.setNote(plot.getNote());
+            plot_new.setRevision(revision_service.next(gardener.getId(), garden_id));
             plot_repo.save(plot_new);
 
             return new ResponseEntity<>(plot, HttpStatus.OK);
@@ -298,16 +334,24 @@ public class Plot_C {
     /* ------------------------------ DELETE METHODS -------------------- */
 
     @DeleteMapping("/plot/{garden_name}/{plot_name}")
-    public  ResponseEntity<Plot> DeletePlot(@RequestHeader("Authorization") String token,
-            @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String plot_name) {
+    @Transactional
+    public  ResponseEntity<Plot> DeletePlot(@PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String plot_name) {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        Optional<Garden> garden = garden_repo.findOneByName(gardener.getId(), garden_name);
+        Gardener gardener = controller_service.getGardener();
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
         // If no garden -> cant delete the plot
-        if (!garden.isPresent()) {
+        if (garden_id == null) {
             return new ResponseEntity<>(new Plot(), HttpStatus.OK);
         }
-        plot_repo.deleteByGardenGardenerAndName(gardener.getId(), garden.get().getId(), plot_name);
+        /* Every version of the plot is deleted */
+        List<Long> plot_ids = plot_repo.findIdsByGardenAndName(garden_id, plot_name);
+        plot_repo.deleteByGardenGardenerAndName(gardener.getId(), garden_id, plot_name);
+        if (!plot_ids.isEmpty()) {
+            Long revision = revision_service.next(gardener.getId(), garden_id);
+            for (Long plot_id : plot_ids) {
+                revision_service.recordDeletion(gardener.getId(), Tombstone.Type.PLOT, plot_id, revision);
+            }
+        }
         return new ResponseEntity<>(new Plot(), HttpStatus.OK);
     }
 
@@ -10,7 +10,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,6 +24,7 @@ import com.vegAppTest.Repositories.Garden_R;
 import com.vegAppTest.Repositories.Gardener_R;
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Security.Service.GardenAccessService;
 
 @RestController
 public class Role_C {
@@ -41,22 +41,30 @@ public class Role_C {
     @Autowired
     ControllerService controller_servcice;
 
+    @Autowired
+    GardenAccessService garden_access_service;
+
     /* ------------------------------ POST METHODS -------------------- */
     /* To create a role */
     @PostMapping("/role")
-    public ResponseEntity<Role> createRole(@RequestHeader("Authorization") String token,
-            @RequestBody Role role) throws NotFoundException {
+    public ResponseEntity<Role> createRole(@RequestBody Role role) throws NotFoundException {
 
         // Check constraints on role fields
         if (role.getGarden_id() == null || role.getGardener_id() == null
                 || (role.getRole() != 1 && role.getRole() != 2)) {
             return new ResponseEntity<>(new Role(), HttpStatus.BAD_REQUEST);
         }
+        // Only the owner of the garden shares it
+        GardenAccessService.Access access = controller_servcice.getAccess(role.getGarden_id());
+        if (access == null || !access.isOwner()) {
+            return new ResponseEntity<>(new Role(), HttpStatus.FORBIDDEN);
+        }
         // Verify that the garden and the gardener given in the body exist
         Optional<Garden> garden = garden_repo.findById(role.getGarden_id());
         Optional<Gardener> gardener = gardener_repo.findById(role.getGardener_id());
         if (garden.isPresent() && gardener.isPresent()) {
             role_repo.save(role);
+            garden_access_service.invalidate(role.getGardener_id());
             return new ResponseEntity<>(role, HttpStatus.OK);
         }
         // If not, return a null
@@ -65,15 +73,21 @@ public class Role_C {
 
     /* ------------------------------ DELETE METHODS -------------------- */
     @DeleteMapping("/role")
-    public ResponseEntity<?> delRole(@RequestHeader("Authorization") String token, @RequestParam Long garden_id,
+    public ResponseEntity<?> delRole(@RequestParam Long garden_id,
             @RequestParam Long gardener_id, @RequestParam int role) {
 
         // Check constraints on role fields
         if (garden_id == null || gardener_id == null || (role != 1 && role != 2)) {
             return new ResponseEntity<>(new Role(), HttpStatus.BAD_REQUEST);
         }
+        // The owner of the garden takes a role back, or the gardener gives it up
+        GardenAccessService.Access access = controller_servcice.getAccess(garden_id);
+        if ((access == null || !access.isOwner()) && !gardener_id.equals(controller_servcice.getGardener().getId())) {
+            return new ResponseEntity<>(new Role(), HttpStatus.FORBIDDEN);
+        }
 
         role_repo.deleteByGardenIdAndGardenerId(garden_id, gardener_id, role);
+        garden_access_service.invalidate(gardener_id);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -1,14 +1,13 @@
 package com.vegAppTest.Controllers;
 
-import org.springframework.web.reactive.function.BodyInserters;
-import org.springframework.web.reactive.function.client.WebClient;
+import java.util.Date;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -17,21 +16,21 @@ import org.springframework.web.bind.annotation.RestController;
 
 /* Entities  */
 import com.vegAppTest.Entities.Sync;
-import com.fasterxml.jackson.databind.JsonNode;
 /* Repositories */
 import com.vegAppTest.Repositories.Sync_R;
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Services.PayloadFormatService;
+import com.vegAppTest.Services.SyncService;
 import com.vegAppTest.Wrapper.RequestData;
 import org.springframework.web.bind.annotation.PutMapping;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 @RestController
 public class Sync_C {
 
-    private final WebClient webClient;
-
-    public Sync_C(WebClient webClient) {
-        this.webClient = webClient;
-    }
+    private static final String DEVICE_ID = "X-Device-Id";
 
     @Autowired
     Sync_R sync_repo;
@@ -39,159 +38,120 @@ public class Sync_C {
     @Autowired
     ControllerService controller_servcice;
 
+    @Autowired
+    PayloadFormatService payload_format_service;
+
+    @Autowired
+    SyncService sync_service;
+
+    /*
+     * Each device of a gardener has its own sync, identified by its X-Device-Id
+     * header (the clients without it share the sync of the empty device id)
+     */
+
     @PostMapping("/sync")
-    public ResponseEntity<String> createSync(@RequestHeader("Authorization") String token) {
-        /* With token, verify that user exist etc */
+    public ResponseEntity<String> createSync(
+            @RequestHeader(value = DEVICE_ID, required = false) String device_id) {
+
+        String device = SyncService.device(device_id);
+        if (device == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid " + DEVICE_ID);
+        }
 
         Sync sync = new Sync();
         /* Then, initialize the fields for the synchronization */
-        sync.setGardener_id(controller_servcice.getGardenerFromToken(token).getId()); // Hardcoded for now
+        sync.setGardener_id(controller_servcice.getGardener().getId()); // Hardcoded for now
+        sync.setDevice_id(device);
         sync.setApi_number(0l);
         sync.setApi_response(null);
+        sync.setLast_activity(new Date());
 
         try {
             /* If it doesn't already exist, then save the entry in the Database */
             sync_repo.save(sync);
             return ResponseEntity.ok("1");
         } catch (DataIntegrityViolationException ex) {
-            /* The sync is ongoing and thus cannot be re-inserted */
+            /* The sync of the device is ongoing and thus cannot be re-inserted */
 
             return ResponseEntity.status(HttpStatus.CONFLICT).body("0"); // Already in the DB
         }
     }
 
     /*
-     * Rule :
-     * - If an api_number of the request body is equal to the api_number of the DB,
-     * then return the API response
-     * - If an api_number of the request body is NOT equal to the api_number of the
-     * DB, it must be equal to = api_number (from DB) + 1
+     * Rule (see SyncService.apply) :
+     * - If an api_number of the request body is already applied and one of the
+     * last sync.window.size ones, then return its API response
+     * - If it is the api_number of the DB + 1, the API request is applied
+     * - If it is further ahead within the window, it is applied once the previous
+     * ones are, so that the client may send several requests without waiting
      * - Any other case are not handled for now and return an error
      */
 
     @PutMapping("/sync")
-    public ResponseEntity<String> updateSync(@RequestHeader("Authorization") String token,
-            @RequestBody RequestData request_data) {
-        /* Check things with the token */
+    public ResponseEntity<?> updateSync(@RequestHeader("Authorization") String token,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = DEVICE_ID, required = false) String device_id,
+            @RequestBody RequestData request_data, HttpServletRequest request, HttpServletResponse response) {
 
-        System.out.println("We entered HERE");
         if (request_data == null) {
-            System.out.println("THE REQUEST DATA IS WRONG");
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("-1");
         }
-
-        /* For now, hardcoded for gardener 1 without token */
-        Sync sync_db = sync_repo.findSyncByGardenerId(controller_servcice.getGardenerFromToken(token).getId());
-        /* First verify that the sync is ongoing */
-        if (sync_db == null) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No sync is ongoing for this user");
+        String device = SyncService.device(device_id);
+        if (device == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid " + DEVICE_ID);
         }
 
-        /*
-         * Now that we are sure that the sync is ongoing, compare the api_numbers of the
-         * db and the request
-         */
-        if (request_data.api_number == sync_db.getApi_number()) {
-            /*
-             * If we are here, this means that the response was lost, and we need to resend
-             * it
-             */
-
-            return ResponseEntity.status(HttpStatus.OK).body(sync_db.getApi_response());
-        }
+        Long gardener_id = controller_servcice.getGardener().getId();
+        return negotiated(sync_service.apply(gardener_id, device, request_data, token, request, response), accept);
+    }
 
-        if (request_data.api_number == sync_db.getApi_number() + 1) {
-            /*
-             * If we are here, this means that we received the previous response, and the
-             * API request has not been applied yet
-             */
-
-            // 1. Apply API request
-            MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
-
-            headers.add("Authenticate", token); // Add the header with token
-
-            ResponseEntity<String> response_entity = applyApiCall(request_data.request_type, request_data.url,
-                    request_data.body, token, null, null);
-            // 2. Increase api number in DB by 1
-            sync_db.setApi_number(sync_db.getApi_number() + 1);
-
-            // 3. Update the response to include the api_number, and request fields. The new
-            // forged body is stored and sent to the User
-            String updated_body = response_entity.getBody();
-            updated_body = "{\"api_number\": " + sync_db.getApi_number() + ",  \"response\": " + updated_body + "}";
-
-            ResponseEntity<String> updated_response_entity = new ResponseEntity<>(updated_body,
-                    response_entity.getHeaders(), response_entity.getStatusCode());
-            sync_db.setApi_response(updated_body);
-            sync_repo.save(sync_db);
-            // 4. return the response after saving the sync entity on the DB
-            return updated_response_entity;
+    /*
+     * Same rule as PUT /sync for a list of operations with consecutive
+     * api_numbers, applied in one transaction. The response gives the response
+     * of every operation :
+     * {"api_number": last, "responses": [{"api_number": n, "response": ...}, ...]}
+     */
+    @PutMapping("/sync/batch")
+    public ResponseEntity<?> updateSyncBatch(@RequestHeader("Authorization") String token,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = DEVICE_ID, required = false) String device_id,
+            @RequestBody List<RequestData> batch, HttpServletRequest request, HttpServletResponse response) {
+
+        String device = SyncService.device(device_id);
+        if (device == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid " + DEVICE_ID);
         }
 
-        /*
-         * If we are here, this means there is an unhandled error and we return the
-         * online DB api number for debugging purposes
-         */
-        String error = sync_db.getApi_number().toString();
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
-                "Unexpected api_number, Received : " + request_data.api_number + " and expected is (+1) :" + error);
+        Long gardener_id = controller_servcice.getGardener().getId();
+        return negotiated(sync_service.applyBatch(gardener_id, device, batch, token, request, response), accept);
     }
 
-    public ResponseEntity<String> applyApiCall(String request_type, String uri,
-            JsonNode requestBody, String token,
-            MultiValueMap<String, String> pathVariables, MultiValueMap<String, String> requestParams) {
-
-        HttpMethod method;
-
-        /* Retrieve the method from the String */
-        switch (request_type) {
-
-            case "get":
-
-                method = HttpMethod.GET;
-                break;
-
-            case "post":
-
-                method = HttpMethod.POST;
-                break;
+    /* The stored responses are JSON text, re-encoded when a binary format is accepted */
+    private ResponseEntity<?> negotiated(ResponseEntity<String> response, String accept) {
 
-            case "put":
-
-                method = HttpMethod.PUT;
-                break;
-
-            case "delete":
-
-                method = HttpMethod.DELETE;
-                break;
-
-            default:
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Unhandled type of HTTP method :" + request_type);
+        PayloadFormatService.Format format = payload_format_service.negotiate(accept);
+        if (format == PayloadFormatService.Format.JSON || response.getBody() == null) {
+            return response;
         }
 
-        WebClient.RequestBodySpec requestSpec = webClient
-                .method(method)
-                .uri(uri)
-                .header("Authorization", token);
-
-        // Add request body if it's not null
-        if (requestBody != null) {
-            requestSpec.body(BodyInserters.fromValue(requestBody));
-
+        byte[] body = payload_format_service.fromJson(response.getBody(), format);
+        if (body == null) {
+            return response;
         }
-
-        return requestSpec.retrieve().toEntity(String.class).block();
+        return ResponseEntity.status(response.getStatusCode()).contentType(format.getMedia_type()).body(body);
     }
 
     @DeleteMapping("/sync")
-    public void DeleteSync(@RequestHeader("Authorization") String token) {
+    public void DeleteSync(@RequestHeader(value = DEVICE_ID, required = false) String device_id) {
 
-        Sync sync = sync_repo.findSyncByGardenerId(controller_servcice.getGardenerFromToken(token).getId());
+        String device = SyncService.device(device_id);
+        if (device == null) {
+            return;
+        }
+        Sync sync = sync_repo.findSync(controller_servcice.getGardener().getId(), device);
         if (sync != null) {
             sync_repo.delete(sync);
+            sync_service.endSession(sync.getId());
         }
     }
 }
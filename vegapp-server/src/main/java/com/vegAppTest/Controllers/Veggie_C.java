@@ -11,13 +11,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 /*   Entities   */
 import com.vegAppTest.Entities.CategoryPrimary;
 import com.vegAppTest.Entities.CategorySecondary;
 import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Entities.Tombstone;
 import com.vegAppTest.Entities.Veggie;
 
 /*   Repositories   */
@@ -30,9 +30,12 @@ import com.vegAppTest.Repositories.Plant_R;
 
 /*   Services   */
 import com.vegAppTest.Security.Service.ControllerService;
+import com.vegAppTest.Services.NameResolutionService;
+import com.vegAppTest.Services.RevisionService;
 
 /*   Validation  */
 import org.springframework.validation.annotation.Validated;
+import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.Size;
 
 @RestController
@@ -63,18 +66,30 @@ public class Veggie_C {
     @Autowired
     ControllerService controller_service;
 
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    NameResolutionService name_resolution_service;
+
     /* ------------------------------ POST METHODS -------------------- */
 
     @PostMapping("/vegetable/{category_primary_name}/{garden_name}/{category_secondary_name}")
+    @Transactional
     public ResponseEntity<?> createVeg(@PathVariable @Size(max = 255) String category_primary_name,
             @PathVariable @Size(max = 255) String garden_name, @RequestBody Veggie veggie,
-            @PathVariable @Size(max = 255) String category_secondary_name,
-            @RequestHeader("Authorization") String token) throws NotFoundException {
+            @PathVariable @Size(max = 255) String category_secondary_name) throws NotFoundException {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
+        Gardener gardener = controller_service.getGardener();
 
-        CategoryPrimary category_primary = category_primary_repo.findByGardenerIdCategoryNameGardenName(
-                gardener.getId(), category_primary_name, garden_name).get();
+        /* Names resolved from the cache, the categories are references (no query) */
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        Long category_primary_id = name_resolution_service.primaryId(gardener.getId(), garden_name,
+                category_primary_name);
+        if (category_primary_id == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        CategoryPrimary category_primary = category_primary_repo.getReferenceById(category_primary_id);
 
         veggie.setCategory_primary(category_primary);
 
@@ -104,17 +119,17 @@ public class Veggie_C {
 
         /* End of constraints */
 
-        Optional<CategorySecondary> category_secondary;
+        Long category_secondary_id;
         Optional<Veggie> veg;
         Long category_s = 0l;
         if (!category_secondary_name.equals("null")) {
-            category_secondary = category_secondary_repo
-                    .findByGardenerIdCategoryNameGardenName(gardener.getId(), category_secondary_name, garden_name);
+            category_secondary_id = name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_secondary_name);
 
-            if (category_secondary.isPresent()) {
+            if (category_secondary_id != null) {
                 /* Add the catalogue secondary if found */
-                veggie.setCategory_secondary(category_secondary.get());
-                category_s = category_secondary.get().getId();
+                veggie.setCategory_secondary(category_secondary_repo.getReferenceById(category_secondary_id));
+                category_s = category_secondary_id;
 
                 veg = veggie_repo.veggieExistSecondary(veggie.getCategory_primary().getId(),
                         category_s, veggie.getName());
@@ -122,6 +137,7 @@ public class Veggie_C {
                 if (veg.isPresent()) {
                     return new ResponseEntity<>(HttpStatus.CONFLICT);
                 }
+                veggie.setRevision(revision_service.next(gardener.getId(), garden_id));
                 veggie_repo.save(veggie);
                 return ResponseEntity.status(HttpStatus.CREATED).body(veggie);
             }
@@ -132,6 +148,7 @@ public class Veggie_C {
         if (veg.isPresent()) {
             return new ResponseEntity<>(HttpStatus.FORBIDDEN);
         }
+        veggie.setRevision(revision_service.next(gardener.getId(), garden_id));
         veggie_repo.save(veggie);
         return ResponseEntity.status(HttpStatus.CREATED).body(veggie);
 
@@ -149,15 +166,15 @@ public class Veggie_C {
     /* ------------------------------ PUT METHODS -------------------- */
 
     @PutMapping("/vegetable/{garden_name}/{category_primary_name_new}/{category_secondary_name_new}/{veggie_name}/{category_primary_name_old}/{category_secondary_name_old}")
+    @Transactional
     public ResponseEntity<?> modifyVeggie(@PathVariable @Size(max = 255) String garden_name,
             @PathVariable @Size(max = 255) String category_primary_name_new,
             @PathVariable @Size(max = 255) String category_secondary_name_new,
             @RequestBody Veggie veggie, @PathVariable @Size(max = 255) String veggie_name,
             @PathVariable @Size(max = 255) String category_primary_name_old,
-            @PathVariable @Size(max = 255) String category_secondary_name_old,
-            @RequestHeader("Authorization") String token) {
+            @PathVariable @Size(max = 255) String category_secondary_name_old) {
 
-        Gardener gardener = controller_service.getGardenerFromToken(token);
+        Gardener gardener = controller_service.getGardener();
 
         /* Manually check constraints for Veggie fields */
 
@@ -185,34 +202,39 @@ public class Veggie_C {
 
         /* End of constraints */
 
-        CategoryPrimary category_primary_new = category_primary_repo.findByGardenerIdCategoryNameGardenName(
-                gardener.getId(), category_primary_name_new, garden_name).get();
-
-        CategoryPrimary category_primary_old = category_primary_repo.findByGardenerIdCategoryNameGardenName(
-                gardener.getId(), category_primary_name_old, garden_name).get();
+        /* Names resolved from the cache, the categories are references (no query) */
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        Long category_primary_new_id = name_resolution_service.primaryId(gardener.getId(), garden_name,
+                category_primary_name_new);
+        Long category_primary_old_id = name_resolution_service.primaryId(gardener.getId(), garden_name,
+                category_primary_name_old);
+        if (category_primary_new_id == null || category_primary_old_id == null) {
+            return new ResponseEntity<>(new Veggie(), HttpStatus.NOT_FOUND);
+        }
+        CategoryPrimary category_primary_new = category_primary_repo.getReferenceById(category_primary_new_id);
 
-        Optional<CategorySecondary> category_secondary_old;
-        Optional<CategorySecondary> category_secondary_new;
+        Long category_secondary_old_id;
+        Long category_secondary_new_id;
         CategorySecondary updated_secondary = null;
         Optional<Veggie> veg;
         // first check if the new category secondary exist
         // first check if the new category secondary exist
         if (!category_secondary_name_new.equals("null")) {
-            category_secondary_new = category_secondary_repo
-                    .findByGardenerIdCategoryNameGardenName(gardener.getId(), category_secondary_name_new, garden_name);
-            if (category_secondary_new.isPresent()) {
-                updated_secondary = category_secondary_new.get();
+            category_secondary_new_id = name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_secondary_name_new);
+            if (category_secondary_new_id != null) {
+                updated_secondary = category_secondary_repo.getReferenceById(category_secondary_new_id);
             }
         }
 
         if (!category_secondary_name_old.equals("null")) {
-            category_secondary_old = category_secondary_repo
-                    .findByGardenerIdCategoryNameGardenName(gardener.getId(), category_secondary_name_old, garden_name);
+            category_secondary_old_id = name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_secondary_name_old);
 
-            if (category_secondary_old.isPresent()) {
+            if (category_secondary_old_id != null) {
                 /* Check if the veggie exist with that secondary cat */
-                veg = veggie_repo.veggieExistSecondary(category_primary_old.getId(),
-                        category_secondary_old.get().getId(), veggie_name);
+                veg = veggie_repo.veggieExistSecondary(category_primary_old_id,
+                        category_secondary_old_id, veggie_name);
 
                 if (veg.isPresent()) {
 
@@ -235,13 +257,15 @@ public class Veggie_C {
                     if (updated_secondary != null) {
                         updated_veggie.setCategory_secondary_id(updated_secondary.getId());
                     }
+                    updated_veggie.setRevision(
+                            revision_service.next(gardener.getId(), garden_id));
                     veggie_repo.save(updated_veggie);
                     return new ResponseEntity<>(updated_veggie, HttpStatus.OK);
                 }
             }
             return new ResponseEntity<>(new Veggie(), HttpStatus.NOT_FOUND);
         }
-        veg = veggie_repo.veggieExistNoSecondary(category_primary_old.getId(),
+        veg = veggie_repo.veggieExistNoSecondary(category_primary_old_id,
                 veggie_name);
 
         if (veg.isPresent()) {
@@ -256,6 +280,8 @@ public class Veggie_C {
             updated_veggie.setSeed_expiration(veggie.getSeed_expiration());
             updated_veggie.setCategory_primary(category_primary_new);
             updated_veggie.setCategory_secondary(updated_secondary);
+            updated_veggie.setRevision(
+                    revision_service.next(gardener.getId(), garden_id));
             veggie_repo.save(updated_veggie);
             return new ResponseEntity<>(updated_veggie, HttpStatus.OK);
         }
@@ -265,36 +291,45 @@ public class Veggie_C {
 
     /* ------------------------------ DELETE METHODS -------------------- */
     @DeleteMapping("/vegetable/{veggie_name}/{category_primary_name}/{garden_name}/{category_secondary_name}")
+    @Transactional
     public void delVeg(@PathVariable @Size(max = 255) String category_primary_name,
             @PathVariable @Size(max = 255) String garden_name, @PathVariable @Size(max = 255) String veggie_name,
-            @PathVariable @Size(max = 255) String category_secondary_name,
-            @RequestHeader("Authorization") String token) {
-
-        Gardener gardener = controller_service.getGardenerFromToken(token);
-        CategoryPrimary category_primary = category_primary_repo.findByGardenerIdCategoryNameGardenName(
-                gardener.getId(), category_primary_name, garden_name).get();
-
-        System.out.println(category_secondary_name);
+            @PathVariable @Size(max = 255) String category_secondary_name) {
+
+        Gardener gardener = controller_service.getGardener();
+        Long garden_id = name_resolution_service.gardenId(gardener.getId(), garden_name);
+        Long category_primary_id = name_resolution_service.primaryId(gardener.getId(), garden_name,
+                category_primary_name);
+        /* Nothing to delete */
+        if (category_primary_id == null) {
+            return;
+        }
 
         if (!category_secondary_name.equals("null")) {
-            CategorySecondary category_secondary = category_secondary_repo
-                    .findByGardenerIdCategoryNameGardenName(gardener.getId(), category_secondary_name, garden_name)
-                    .get();
-            Optional<Veggie> veggie = veggie_repo.veggieExistSecondary(category_primary.getId(),
-                    category_secondary.getId(),
+            Long category_secondary_id = name_resolution_service.secondaryId(gardener.getId(), garden_name,
+                    category_secondary_name);
+            if (category_secondary_id == null) {
+                return;
+            }
+            Optional<Veggie> veggie = veggie_repo.veggieExistSecondary(category_primary_id,
+                    category_secondary_id,
                     veggie_name);
 
             if (veggie.isPresent()) {
                 veggie_repo.delete(veggie.get());
+                revision_service.recordDeletion(gardener.getId(), Tombstone.Type.VEGGIE, veggie.get().getId(),
+                        revision_service.next(gardener.getId(), garden_id));
             }
             return;
         }
 
-        Optional<Veggie> veggie = veggie_repo.veggieExistNoSecondary(category_primary.getId(),
+        Optional<Veggie> veggie = veggie_repo.veggieExistNoSecondary(category_primary_id,
                 veggie_name);
 
         if (veggie.isPresent()) {
             veggie_repo.delete(veggie.get());
+            revision_service.recordDeletion(gardener.getId(), Tombstone.Type.VEGGIE, veggie.get().getId(),
+                    revision_service.next(gardener.getId(), garden_id));
         }
     }
 
@@ -22,6 +22,10 @@ public class CategoryPrimary {
     @Column(name = "name", length = 255)
     private String name;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     /* Relation Garden - Category */
     @ManyToOne
     @JoinColumn(name = "garden_id")
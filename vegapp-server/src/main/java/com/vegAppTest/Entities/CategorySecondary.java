@@ -38,6 +38,10 @@ public class CategorySecondary {
     @Enumerated(EnumType.STRING)
     private Color color;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     /* Relation Garden - Category */
     @ManyToOne
     @JoinColumn(name = "garden_id")
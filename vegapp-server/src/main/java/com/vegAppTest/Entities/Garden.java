@@ -21,6 +21,10 @@ public class Garden {
     @Column(name = "name", length = 255)
     private String name;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     /* Relation Garden - Plot */
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "garden", cascade = CascadeType.ALL)
     @JsonIgnore
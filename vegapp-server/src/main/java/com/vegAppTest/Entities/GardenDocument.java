@@ -0,0 +1,27 @@
+package com.vegAppTest.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+
+@Entity // mark the class as JPA entity
+// Read model : the /init/{garden_id} body of a garden, rewritten by every write into the garden
+@Table(name = "garden_document")
+public class GardenDocument {
+
+    @Id
+    @Column(name = "garden_id")
+    private Long garden_id;
+
+    @Column(name = "gardener_id", nullable = false)
+    private Long gardener_id;
+
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+    /* Written and read as text by GardenDocument_R */
+    @Column(name = "document", columnDefinition = "jsonb", nullable = false)
+    private String document;
+
+}
@@ -0,0 +1,23 @@
+package com.vegAppTest.Entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+
+@Entity // mark the class as JPA entity
+// Revision of the gardener at the last write into a garden (its categories, veggies, plots or plants)
+@Table(name = "garden_revision")
+public class GardenRevision {
+
+    @Id
+    @Column(name = "garden_id")
+    private Long garden_id;
+
+    @Column(name = "gardener_id", nullable = false)
+    private Long gardener_id;
+
+    @Column(name = "revision", nullable = false)
+    private Long revision;
+
+}
@@ -54,6 +54,11 @@ public class Gardener implements UserDetails {
     @Enumerated(EnumType.STRING)
     private Role role;
 
+    /* Incremented by every write on the data of the gardener, see RevisionService */
+    @Column(name = "revision", columnDefinition = "bigint default 0", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long revision;
+
     public Gardener() {
 
     }
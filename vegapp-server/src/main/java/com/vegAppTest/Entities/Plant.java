@@ -1,5 +1,7 @@
 package com.vegAppTest.Entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -22,6 +24,10 @@ public class Plant {
     @Column(name = "vegetable_location") // where is the veggie for ex 1.2 (1st principal line 2nd secondary line)
     private String vegetable_location;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     public void setPlotId(Long plot_id) {
         this.plot_id = plot_id;
     }
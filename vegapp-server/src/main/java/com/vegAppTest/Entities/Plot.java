@@ -3,6 +3,7 @@ package com.vegAppTest.Entities;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.List;
 
@@ -12,7 +13,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity // mark the class as JPA entity
 // A garden has only one plot with a particular name and a particular version
-@Table(name = "plot", uniqueConstraints = { @UniqueConstraint(columnNames = { "name", "version", "garden_id" }) })
+// The history queries of a garden seek its plots by creation date
+@Table(name = "plot", uniqueConstraints = { @UniqueConstraint(columnNames = { "name", "version", "garden_id" }) },
+        indexes = { @Index(name = "plot_garden_creation_date", columnList = "garden_id, creation_date") })
 public class Plot {
 
     @Id
@@ -42,6 +45,10 @@ public class Plot {
     @Column(name = "note", length = 1024)
     private String note;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     /* Relation Garden - Plot */
     @ManyToOne
     @JoinColumn(name = "garden_id")
@@ -68,6 +75,18 @@ public class Plot {
         this.note = "";
     }
 
+    /*
+     * Only the day is stored : the entity keeps the same value as if read back,
+     * so that what is built from it in the same transaction (the garden
+     * document) is what a later read gives
+     */
+    @PrePersist
+    void truncateCreationDate() {
+        if (creation_date != null && !(creation_date instanceof java.sql.Date)) {
+            creation_date = java.sql.Date.valueOf(creation_date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+        }
+    }
+
     public List<Veggie> getVeggies() {
         return veggies;
     }
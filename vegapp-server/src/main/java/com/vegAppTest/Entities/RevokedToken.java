@@ -0,0 +1,43 @@
+package com.vegAppTest.Entities;
+
+import java.util.Date;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+
+@Entity // mark the class as JPA entity
+// A revoked token (jti), or all the tokens of a subject issued before a date; kept until they would have expired
+@Table(name = "revoked_token", indexes = { @Index(columnList = "expires_at") })
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "jti", length = 64)
+    private String jti;
+
+    @Column(name = "subject", length = 255)
+    private String subject;
+
+    @Column(name = "issued_before")
+    private Date issued_before;
+
+    @Column(name = "expires_at", nullable = false)
+    private Date expires_at;
+
+    public RevokedToken() {
+
+    }
+
+    public RevokedToken(String jti, String subject, Date issued_before, Date expires_at) {
+        this.jti = jti;
+        this.subject = subject;
+        this.issued_before = issued_before;
+        this.expires_at = expires_at;
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.vegAppTest.Entities;
 
+import java.util.Date;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.*;
@@ -8,7 +10,8 @@ import lombok.Data;
 @Data
 
 @Entity // mark the class as JPA entity
-@Table(name = "sync")
+// One sync session per device of a gardener, each with its own api_number sequence
+@Table(name = "sync", uniqueConstraints = { @UniqueConstraint(columnNames = { "gardener_id", "device_id" }) })
 
 public class Sync {
 
@@ -20,17 +23,28 @@ public class Sync {
                                                         // are auto-incremented
     private Long id;
 
-    @Column(name = "gardener_id", unique = true)
+    @Column(name = "gardener_id")
     @JsonIgnore
     private Long gardener_id;
 
+    // X-Device-Id of the client, empty for the clients that do not send it
+    @Column(name = "device_id", nullable = false, length = 64, columnDefinition = "varchar(64) default ''")
+    @JsonIgnore
+    private String device_id = "";
+
     @Column(name = "api_number")
     private Long api_number;
 
+    // Last response of the syncs started before sync_journal, no longer written
     @Column(name = "api_response", columnDefinition = "TEXT")
 
     private String api_response;
 
+    // Start of the sync or last operation applied, the reaper removes the syncs inactive for sync.session.ttl
+    @Column(name = "last_activity")
+    @JsonIgnore
+    private Date last_activity;
+
     public Sync() {
 
     }
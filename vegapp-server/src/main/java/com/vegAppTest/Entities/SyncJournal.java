@@ -0,0 +1,56 @@
+package com.vegAppTest.Entities;
+
+import java.util.Date;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+
+@Entity // mark the class as JPA entity
+// One row per operation applied by a sync, never updated; removed by the reaper after sync.journal.ttl
+@Table(name = "sync_journal", uniqueConstraints = { @UniqueConstraint(columnNames = { "sync_id", "api_number" }) },
+        indexes = { @Index(columnList = "applied_at") })
+public class SyncJournal {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "sync_id", nullable = false)
+    private Long sync_id;
+
+    @Column(name = "gardener_id", nullable = false)
+    private Long gardener_id;
+
+    @Column(name = "api_number", nullable = false)
+    private Long api_number;
+
+    // Revision of the gardener once applied (see RevisionService) : the order of the operations of all
+    // the devices, the writes of a gardener being committed in revision order
+    @Column(name = "revision")
+    private Long revision;
+
+    @Column(name = "request_type", length = 8)
+    private String request_type;
+
+    // Path and query of the url only
+    @Column(name = "path", length = 1024)
+    private String path;
+
+    // Status of the applied operation, null if it was folded away (see SyncCoalescer)
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "applied_at", nullable = false)
+    private Date applied_at;
+
+    // Reply sent to the client, gzipped unless it is shorter as is
+    @Column(name = "response")
+    private byte[] response;
+
+    @Column(name = "response_size")
+    private Integer response_size;
+
+}
@@ -0,0 +1,56 @@
+package com.vegAppTest.Entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+@Data
+
+@Entity // mark the class as JPA entity
+// One row per deleted object, so that the clients can be told about deletions in /init?since=
+@Table(name = "tombstone", indexes = { @Index(columnList = "gardener_id, revision") })
+public class Tombstone {
+
+    /* Type of the deleted object, a deleted garden or plot also removes its children */
+    public enum Type {
+        GARDEN,
+        CATEGORY_PRIMARY,
+        CATEGORY_SECONDARY,
+        VEGGIE,
+        PLOT,
+        PLANT
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    @JsonIgnore
+    private Long id;
+
+    @Column(name = "gardener_id")
+    @JsonIgnore
+    private Long gardener_id;
+
+    @Column(name = "entity_type")
+    @Enumerated(EnumType.STRING)
+    private Type entity_type;
+
+    @Column(name = "entity_id")
+    private Long entity_id;
+
+    @Column(name = "revision")
+    private Long revision;
+
+    public Tombstone() {
+
+    }
+
+    public Tombstone(Long gardener_id, Type entity_type, Long entity_id, Long revision) {
+        this.gardener_id = gardener_id;
+        this.entity_type = entity_type;
+        this.entity_id = entity_id;
+        this.revision = revision;
+    }
+
+}
@@ -44,6 +44,10 @@ public class Veggie {
     @Column(name = "note", length = 1024)
     private String note;
 
+    @Column(name = "revision") // revision of the gardener when the row was last written
+    @JsonIgnore
+    private Long revision;
+
     /* Relation Category - Veggie */
     @ManyToOne(cascade = {CascadeType.DETACH, CascadeType.MERGE})
     @JoinColumn(name = "category_secondary_id") 
@@ -6,10 +6,16 @@ import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.stream.Stream;
+
 import com.vegAppTest.Entities.CategoryPrimary;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -35,4 +41,17 @@ public interface CategoryPrimary_R extends JpaRepository<CategoryPrimary, Long>
         @Query("Select c FROM CategoryPrimary c WHERE c.garden.id = :garden_id")
         List<CategoryPrimary> findByGardenId(Long garden_id);
 
+        /* Snapshot queries (forward-only cursors) : the garden is fetched in the same statement */
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT c FROM CategoryPrimary c JOIN FETCH c.garden g WHERE g.gardener.id = :gardener_id ORDER BY g.id, c.name")
+        Stream<CategoryPrimary> streamSnapshotByGardenerId(@Param("gardener_id") Long gardener_id);
+
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT c FROM CategoryPrimary c JOIN FETCH c.garden g WHERE g.id = :garden_id ORDER BY c.name")
+        Stream<CategoryPrimary> streamSnapshotByGardenId(@Param("garden_id") Long garden_id);
+
+        /* Delta query : categories written after a revision */
+        @Query("SELECT c FROM CategoryPrimary c JOIN FETCH c.garden g WHERE g.gardener.id = :gardener_id AND c.revision > :since ORDER BY g.id, c.name")
+        List<CategoryPrimary> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
 }
\ No newline at end of file
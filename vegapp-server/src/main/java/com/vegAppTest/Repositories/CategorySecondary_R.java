@@ -6,12 +6,17 @@ import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.stream.Stream;
+
 import com.vegAppTest.Entities.CategorySecondary;
-import com.vegAppTest.Entities.CategorySecondary.Color;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -38,12 +43,20 @@ public interface CategorySecondary_R extends JpaRepository<CategorySecondary, Lo
         void deleteByGardenerIdAndCategoryName(@Param("gardenerId") Long gardenerId,
                         @Param("categoryName") String categoryName);
 
-        @Modifying
-        @Query("UPDATE CategorySecondary e SET e.name = :newName, e.color = :newColor WHERE e.id = :id")
-        void updatePropertyById(@Param("id") Long id, @Param("newName") String newName,
-                        @Param("newColor") Color newColor);
-
         @Query("Select c FROM CategorySecondary c WHERE c.garden.id = :garden_id")
         List<CategorySecondary> findByGardenId(Long garden_id);
 
+        /* Snapshot queries (forward-only cursors) : the garden is fetched in the same statement */
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT c FROM CategorySecondary c JOIN FETCH c.garden g WHERE g.gardener.id = :gardener_id ORDER BY g.id, c.name")
+        Stream<CategorySecondary> streamSnapshotByGardenerId(@Param("gardener_id") Long gardener_id);
+
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT c FROM CategorySecondary c JOIN FETCH c.garden g WHERE g.id = :garden_id ORDER BY c.name")
+        Stream<CategorySecondary> streamSnapshotByGardenId(@Param("garden_id") Long garden_id);
+
+        /* Delta query : categories written after a revision */
+        @Query("SELECT c FROM CategorySecondary c JOIN FETCH c.garden g WHERE g.gardener.id = :gardener_id AND c.revision > :since ORDER BY g.id, c.name")
+        List<CategorySecondary> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
 }
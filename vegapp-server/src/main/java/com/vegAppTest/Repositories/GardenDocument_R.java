@@ -0,0 +1,34 @@
+package com.vegAppTest.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vegAppTest.Entities.GardenDocument;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface GardenDocument_R extends JpaRepository<GardenDocument, Long> {
+
+    /* Document of a garden, null if it is not built yet or does not belong to the gardener */
+    @Query(value = "SELECT CAST(d.document AS text) FROM garden_document d WHERE d.garden_id = :garden_id AND d.gardener_id = :gardener_id", nativeQuery = true)
+    String findDocument(@Param("gardener_id") Long gardener_id, @Param("garden_id") Long garden_id);
+
+    /* A document built from older data never replaces a newer one */
+    @Modifying
+    @Query(value = "INSERT INTO garden_document (garden_id, gardener_id, revision, document) "
+            + "VALUES (:garden_id, :gardener_id, :revision, CAST(:document AS jsonb)) "
+            + "ON CONFLICT (garden_id) DO UPDATE SET revision = EXCLUDED.revision, document = EXCLUDED.document "
+            + "WHERE garden_document.revision <= EXCLUDED.revision", nativeQuery = true)
+    void upsert(@Param("gardener_id") Long gardener_id, @Param("garden_id") Long garden_id,
+            @Param("revision") Long revision, @Param("document") String document);
+
+    @Modifying
+    @Query("DELETE FROM GardenDocument d WHERE d.garden_id = :garden_id")
+    void deleteByGardenId(@Param("garden_id") Long garden_id);
+
+}
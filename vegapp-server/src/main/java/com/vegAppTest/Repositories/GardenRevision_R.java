@@ -0,0 +1,38 @@
+package com.vegAppTest.Repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vegAppTest.Entities.GardenRevision;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface GardenRevision_R extends JpaRepository<GardenRevision, Long> {
+
+    /* Revision of a garden, null if it is unknown or does not belong to the gardener */
+    @Query("SELECT r.revision FROM GardenRevision r WHERE r.garden_id = :garden_id AND r.gardener_id = :gardener_id")
+    Long findRevision(@Param("gardener_id") Long gardener_id, @Param("garden_id") Long garden_id);
+
+    @Modifying
+    @Query(value = "INSERT INTO garden_revision (garden_id, gardener_id, revision) VALUES (:garden_id, :gardener_id, :revision) "
+            + "ON CONFLICT (garden_id) DO UPDATE SET revision = GREATEST(garden_revision.revision, EXCLUDED.revision)", nativeQuery = true)
+    void upsert(@Param("gardener_id") Long gardener_id, @Param("garden_id") Long garden_id,
+            @Param("revision") Long revision);
+
+    /* For the gardens written before the counters existed */
+    @Modifying
+    @Query(value = "INSERT INTO garden_revision (garden_id, gardener_id, revision) "
+            + "SELECT g.id, g.gardener_id, COALESCE(gr.revision, 0) FROM garden g JOIN gardener gr ON gr.id = g.gardener_id "
+            + "WHERE g.id = :garden_id AND g.gardener_id = :gardener_id ON CONFLICT (garden_id) DO NOTHING", nativeQuery = true)
+    int insertCurrent(@Param("gardener_id") Long gardener_id, @Param("garden_id") Long garden_id);
+
+    @Modifying
+    @Query("DELETE FROM GardenRevision r WHERE r.garden_id = :garden_id")
+    void deleteByGardenId(@Param("garden_id") Long garden_id);
+
+}
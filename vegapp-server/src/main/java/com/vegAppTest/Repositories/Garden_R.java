@@ -23,6 +23,34 @@ public interface Garden_R extends JpaRepository<Garden, Long> {
     @Query("SELECT g FROM Garden g WHERE g.gardener.id = :gardener_id AND name = :name")
     Optional<Garden> findOneByName(Long gardener_id, String name);
 
+    @Query("SELECT g FROM Garden g WHERE g.gardener.id = :gardener_id AND g.id = :garden_id")
+    Optional<Garden> findOneById(Long gardener_id, Long garden_id);
+
+    /* Delta query : gardens written after a revision */
+    @Query("SELECT g FROM Garden g WHERE g.gardener.id = :gardener_id AND g.revision > :since ORDER BY g.id")
+    List<Garden> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
+    /*
+     * Gardens a gardener can access : (garden id, 0) for the owned ones and
+     * (garden id, role.role) for the shared ones, see GardenAccessService
+     */
+    @Query(value = "SELECT g.id, 0 AS role FROM garden g WHERE g.gardener_id = :gardener_id "
+            + "UNION ALL SELECT r.garden_id, r.role FROM role r JOIN garden g ON g.id = r.garden_id "
+            + "WHERE r.gardener_id = :gardener_id ORDER BY 1, 2", nativeQuery = true)
+    List<Object[]> findAccessByGardenerId(@Param("gardener_id") Long gardener_id);
+
+    /*
+     * Names of the gardens and categories of a gardener : (kind, id, garden id,
+     * name), kind is G for a garden, P and S for the categories, see
+     * NameResolutionService
+     */
+    @Query(value = "SELECT 'G', g.id, g.id, g.name FROM garden g WHERE g.gardener_id = :gardener_id "
+            + "UNION ALL SELECT 'P', c.id, c.garden_id, c.name FROM category_primary c JOIN garden g ON g.id = c.garden_id "
+            + "WHERE g.gardener_id = :gardener_id "
+            + "UNION ALL SELECT 'S', c.id, c.garden_id, c.name FROM category_secondary c JOIN garden g ON g.id = c.garden_id "
+            + "WHERE g.gardener_id = :gardener_id", nativeQuery = true)
+    List<Object[]> findNamesByGardenerId(@Param("gardener_id") Long gardener_id);
+
     @Modifying
     @Query("DELETE FROM Garden g WHERE g.gardener.id = :gardener_id AND g.name = :name")
     void deleteByName(@Param("gardener_id") Long gardenerId, @Param("name") String name);
@@ -3,6 +3,9 @@ package com.vegAppTest.Repositories;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.vegAppTest.Entities.Gardener;
@@ -20,4 +23,19 @@ public interface Gardener_R extends JpaRepository<Gardener, Long> {
      * endpoint should not be accessable
      */
     Gardener getReferenceByEmail(String email);
+
+    /*
+     * Increment the revision of a gardener and return it. The row stays locked
+     * until the end of the transaction, so revisions are committed in order
+     */
+    @Query(value = "UPDATE gardener SET revision = COALESCE(revision, 0) + 1 WHERE id = :gardener_id RETURNING revision", nativeQuery = true)
+    Long incrementRevision(@Param("gardener_id") Long gardener_id);
+
+    @Query("SELECT COALESCE(g.revision, 0) FROM Gardener g WHERE g.id = :gardener_id")
+    Long findRevisionById(@Param("gardener_id") Long gardener_id);
+
+    /* Hash of a changed password, or re-hashed at the current cost, see PasswordHashingService */
+    @Modifying
+    @Query("UPDATE Gardener g SET g.password = :password WHERE g.id = :gardener_id")
+    int updatePassword(@Param("gardener_id") Long gardener_id, @Param("password") String password);
 }
@@ -2,10 +2,17 @@ package com.vegAppTest.Repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.vegAppTest.Entities.Plant;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -22,4 +29,22 @@ public interface Plant_R extends JpaRepository<Plant, Long> {
     @Query(value = "SELECT DISTINCT veggie_id FROM plant p JOIN plot pl ON p.plot_id = pl.plot_id WHERE pl.in_calendar = 1 AND pl.garden_id = :garden_id", nativeQuery = true)
     List<Long> findVeggieIdsInDisplayedPlots(Long garden_id);
 
+    /* (id, vegetable_location, veggie_id) of the plants of a plot, oldest first, without loading the entities (PUT /plants) */
+    @Query(value = "SELECT id, vegetable_location, veggie_id FROM plant WHERE plot_id = :plot_id ORDER BY id",
+            nativeQuery = true)
+    List<Object[]> findLayoutByPlotId(@Param("plot_id") Long plot_id);
+
+    /* Snapshot queries (forward-only cursors) : all the plants of the plots of a gardener / a garden */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT pl FROM Plant pl JOIN Plot p ON p.id = pl.plot_id WHERE p.garden.gardener.id = :gardener_id ORDER BY p.garden.id, p.id, pl.vegetable_location")
+    Stream<Plant> streamSnapshotByGardenerId(@Param("gardener_id") Long gardener_id);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT pl FROM Plant pl JOIN Plot p ON p.id = pl.plot_id WHERE p.garden.id = :garden_id ORDER BY p.id, pl.vegetable_location")
+    Stream<Plant> streamSnapshotByGardenId(@Param("garden_id") Long garden_id);
+
+    /* Delta query : plants written after a revision */
+    @Query("SELECT pl FROM Plant pl JOIN Plot p ON p.id = pl.plot_id WHERE p.garden.gardener.id = :gardener_id AND pl.revision > :since ORDER BY p.garden.id, p.id, pl.vegetable_location")
+    List<Plant> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
 }
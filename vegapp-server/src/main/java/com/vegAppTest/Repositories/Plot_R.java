@@ -3,11 +3,18 @@ package com.vegAppTest.Repositories;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 import com.vegAppTest.Entities.Plot;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 import java.util.Optional;
 
@@ -20,15 +27,59 @@ public interface Plot_R extends JpaRepository<Plot, Long> {
         @Query("SELECT COUNT(p) FROM Plot p WHERE p.garden.id = :garden_id AND p.name = :name AND p.version = :version")
         int checkIfExistingPlot(Long garden_id, String name, int version);
 
-        @Query(value = "SELECT DISTINCT name FROM plot WHERE EXTRACT(YEAR FROM creation_date) = :year AND garden_id = :garden_id", nativeQuery = true)
+        /* The years are ranges of creation_date, which the (garden_id, creation_date) index can seek */
+        @Query(value = "SELECT DISTINCT name FROM plot WHERE garden_id = :garden_id "
+                        + "AND creation_date >= make_date(:year, 1, 1) AND creation_date < make_date(:year + 1, 1, 1)", nativeQuery = true)
         List<String> findPlotNamesByYear(int year, Long garden_id);
 
+        /* Drawing of a plot version, with its plants and the names of their vegetables, see PlotDrawing */
+        @Query(value = "SELECT p.id, p.name, p.version, p.nb_of_lines, p.orientation, pl.id AS plant_id, pl.veggie_id, v.name AS veggie_name, pl.vegetable_location "
+                        + "FROM plot p LEFT JOIN plant pl ON pl.plot_id = p.id LEFT JOIN vegetable v ON v.id = pl.veggie_id "
+                        + "WHERE p.garden_id = :garden_id AND p.name = :name AND p.version = :version ORDER BY pl.vegetable_location", nativeQuery = true)
+        List<Object[]> findDrawing(@Param("garden_id") Long garden_id, @Param("name") String name,
+                        @Param("version") int version);
+
+        /* Same, for every version of the plots created in a year (of one plot when name is not null) */
+        @Query(value = "SELECT p.id, p.name, p.version, p.nb_of_lines, p.orientation, pl.id AS plant_id, pl.veggie_id, v.name AS veggie_name, pl.vegetable_location "
+                        + "FROM plot p LEFT JOIN plant pl ON pl.plot_id = p.id LEFT JOIN vegetable v ON v.id = pl.veggie_id "
+                        + "WHERE p.garden_id = :garden_id AND p.creation_date >= make_date(:year, 1, 1) AND p.creation_date < make_date(:year + 1, 1, 1) "
+                        + "AND (CAST(:name AS varchar) IS NULL OR p.name = :name) "
+                        + "ORDER BY p.name, p.version, p.id, pl.vegetable_location", nativeQuery = true)
+        List<Object[]> findDrawingsByYear(@Param("garden_id") Long garden_id, @Param("year") int year,
+                        @Param("name") String name);
+
         @Query(value = "SELECT DISTINCT EXTRACT(YEAR FROM creation_date) FROM plot WHERE garden_id = :garden_id", nativeQuery = true)
         List<Integer> findDistinctYears(Long garden_id);
 
-        @Query(value = "SELECT version FROM plot WHERE garden_id = :garden_id AND EXTRACT(YEAR FROM creation_date) = :year AND name = :name", nativeQuery = true)
+        @Query(value = "SELECT version FROM plot WHERE garden_id = :garden_id AND name = :name "
+                        + "AND creation_date >= make_date(:year, 1, 1) AND creation_date < make_date(:year + 1, 1, 1)", nativeQuery = true)
         List<Integer> findPlotVersions(Long garden_id, int year, String name);
 
+        /*
+         * History tree of a garden, see PlotHistory and PlotHistoryService : one row
+         * per (year, name) with its versions, the number of plots and the sum of
+         * their revisions, ordered by year then name
+         */
+        @Query(value = "SELECT CAST(EXTRACT(YEAR FROM creation_date) AS int) AS year, name, "
+                        + "string_agg(CAST(version AS varchar), ',' ORDER BY version) AS versions, "
+                        + "COUNT(*) AS plots, CAST(COALESCE(SUM(revision), 0) AS bigint) AS revisions "
+                        + "FROM plot WHERE garden_id = :garden_id AND creation_date IS NOT NULL "
+                        + "GROUP BY 1, 2 ORDER BY 1, 2", nativeQuery = true)
+        List<Object[]> findHistory(@Param("garden_id") Long garden_id);
+
+        /*
+         * Same rows for the plots created since a date, then one row without year
+         * with the number of plots created before it and the sum of their revisions
+         */
+        @Query(value = "SELECT CAST(EXTRACT(YEAR FROM creation_date) AS int) AS year, name, "
+                        + "string_agg(CAST(version AS varchar), ',' ORDER BY version) AS versions, "
+                        + "COUNT(*) AS plots, CAST(COALESCE(SUM(revision), 0) AS bigint) AS revisions "
+                        + "FROM plot WHERE garden_id = :garden_id AND creation_date >= :since GROUP BY 1, 2 "
+                        + "UNION ALL SELECT NULL, NULL, NULL, COUNT(*), CAST(COALESCE(SUM(revision), 0) AS bigint) "
+                        + "FROM plot WHERE garden_id = :garden_id AND creation_date < :since "
+                        + "ORDER BY 1, 2", nativeQuery = true)
+        List<Object[]> findHistorySince(@Param("garden_id") Long garden_id, @Param("since") LocalDate since);
+
         @Query(value = "SELECT * FROM plot WHERE garden_id = :garden_id AND name = :name ORDER BY version DESC LIMIT 1", nativeQuery = true)
         Plot findPlotLatestVersion(Long garden_id, String name);
 
@@ -52,6 +103,9 @@ public interface Plot_R extends JpaRepository<Plot, Long> {
                         @Param("plotName") String plotName,
                         @Param("version") Long version);
 
+        @Query("SELECT p.id FROM Plot p WHERE p.garden.id = :garden_id AND p.name = :name")
+        List<Long> findIdsByGardenAndName(@Param("garden_id") Long garden_id, @Param("name") String name);
+
         @Modifying
         @Query(value = "DELETE FROM plot p " +
                         "WHERE p.id IN (" +
@@ -67,4 +121,17 @@ public interface Plot_R extends JpaRepository<Plot, Long> {
         @Query("Select p FROM Plot p WHERE p.garden.id = :garden_id")
         List<Plot> findByGardenId(Long garden_id);
 
+        /* Snapshot queries (forward-only cursors) : the garden is fetched in the same statement */
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT p FROM Plot p JOIN FETCH p.garden g WHERE g.gardener.id = :gardener_id ORDER BY g.id, p.id")
+        Stream<Plot> streamSnapshotByGardenerId(@Param("gardener_id") Long gardener_id);
+
+        @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+        @Query("SELECT p FROM Plot p JOIN FETCH p.garden g WHERE g.id = :garden_id ORDER BY p.id")
+        Stream<Plot> streamSnapshotByGardenId(@Param("garden_id") Long garden_id);
+
+        /* Delta query : plots written after a revision */
+        @Query("SELECT p FROM Plot p JOIN FETCH p.garden g WHERE g.gardener.id = :gardener_id AND p.revision > :since ORDER BY g.id, p.id")
+        List<Plot> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.vegAppTest.Repositories;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vegAppTest.Entities.RevokedToken;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface RevokedToken_R extends JpaRepository<RevokedToken, Long> {
+
+    /* Revocations added since the last load (by this instance or another one) */
+    @Query("SELECT r FROM RevokedToken r WHERE r.id > :last_id AND r.expires_at > :now ORDER BY r.id")
+    List<RevokedToken> findActiveAfter(@Param("last_id") Long last_id, @Param("now") Date now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expires_at <= :now")
+    int deleteExpired(@Param("now") Date now);
+
+}
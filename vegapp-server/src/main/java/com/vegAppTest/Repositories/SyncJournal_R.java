@@ -0,0 +1,26 @@
+package com.vegAppTest.Repositories;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vegAppTest.Entities.SyncJournal;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface SyncJournal_R extends JpaRepository<SyncJournal, Long> {
+
+    @Query("SELECT j FROM SyncJournal j WHERE j.sync_id = :sync_id AND j.api_number = :api_number")
+    SyncJournal findEntry(@Param("sync_id") Long sync_id, @Param("api_number") Long api_number);
+
+    @Modifying
+    @Query("DELETE FROM SyncJournal j WHERE j.applied_at < :before")
+    int deleteAppliedBefore(@Param("before") Date before);
+
+}
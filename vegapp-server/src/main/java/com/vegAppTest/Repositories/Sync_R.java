@@ -1,6 +1,11 @@
 package com.vegAppTest.Repositories;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -10,7 +15,43 @@ import jakarta.transaction.Transactional;
 @Repository
 @Transactional
 public interface Sync_R extends JpaRepository<Sync, Long> {
-    @Query("select s from Sync s where s.gardener_id = :gardener_id")
-    Sync findSyncByGardenerId(Long gardener_id);
+    @Query("select s from Sync s where s.gardener_id = :gardener_id and s.device_id = :device_id")
+    Sync findSync(Long gardener_id, String device_id);
+
+    @Query("select s.id from Sync s where s.gardener_id = :gardener_id and s.device_id = :device_id")
+    Long findSyncId(Long gardener_id, String device_id);
+
+    /*
+     * Read as values, the entity may be an older copy kept by the persistence
+     * context of the request
+     */
+    @Query("select s.api_number from Sync s where s.id = :sync_id")
+    Long findApiNumber(Long sync_id);
+
+    @Query("select s.api_response from Sync s where s.id = :sync_id")
+    String findApiResponse(Long sync_id);
+
+    /*
+     * Serializes the operations of a sync session across the instances of the
+     * server, released at the end of the transaction. The key space of the
+     * one-argument advisory locks is only used for this.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:sync_id)", nativeQuery = true)
+    Integer lockSession(Long sync_id);
+
+    /* Syncs started before last_activity existed get a full TTL from now */
+    @Modifying
+    @Query("update Sync s set s.last_activity = :now where s.last_activity is null")
+    int initLastActivity(Date now);
+
+    @Query("select s.id from Sync s where s.last_activity < :before")
+    List<Long> findInactiveSince(Date before);
+
+    @Modifying
+    @Query("delete from Sync s where s.last_activity < :before")
+    int deleteInactiveSince(Date before);
+
+    @Query("select s.id from Sync s where s.id in :sync_ids")
+    List<Long> findExistingIds(Collection<Long> sync_ids);
 
 }
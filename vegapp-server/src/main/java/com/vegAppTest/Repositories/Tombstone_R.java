@@ -0,0 +1,21 @@
+package com.vegAppTest.Repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.vegAppTest.Entities.Tombstone;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+@Transactional
+public interface Tombstone_R extends JpaRepository<Tombstone, Long> {
+
+    @Query("SELECT t FROM Tombstone t WHERE t.gardener_id = :gardener_id AND t.revision > :since ORDER BY t.revision, t.id")
+    List<Tombstone> findByGardenerIdSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
+}
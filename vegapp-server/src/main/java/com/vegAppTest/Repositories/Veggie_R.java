@@ -1,15 +1,22 @@
 package com.vegAppTest.Repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.stream.Stream;
+
 import com.vegAppTest.Entities.Veggie;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -31,4 +38,21 @@ public interface Veggie_R extends JpaRepository<Veggie, Long> {
   Optional<Long> findVeggieIdByVeggieNameAndGardenId(@Param("veggieName") String veggieName,
       @Param("gardenId") Long gardenId);
 
+  /* (name, id) of the veggies of a garden among these names, in one query (PUT /plants) */
+  @Query(value = "SELECT v.name, v.id FROM vegetable v JOIN category_primary c ON v.category_primary_id = c.id WHERE c.garden_id = :garden_id AND v.name IN (:names) ORDER BY v.id", nativeQuery = true)
+  List<Object[]> findIdsByNamesAndGardenId(@Param("garden_id") Long garden_id, @Param("names") Collection<String> names);
+
+  /* Snapshot queries (forward-only cursors) : the categories and the garden are fetched in the same statement */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("SELECT v FROM Veggie v JOIN FETCH v.category_primary c JOIN FETCH c.garden g LEFT JOIN FETCH v.category_secondary WHERE g.gardener.id = :gardener_id ORDER BY g.id, c.name, v.id")
+  Stream<Veggie> streamSnapshotByGardenerId(@Param("gardener_id") Long gardener_id);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("SELECT v FROM Veggie v JOIN FETCH v.category_primary c JOIN FETCH c.garden g LEFT JOIN FETCH v.category_secondary WHERE g.id = :garden_id ORDER BY c.name, v.id")
+  Stream<Veggie> streamSnapshotByGardenId(@Param("garden_id") Long garden_id);
+
+  /* Delta query : veggies written after a revision */
+  @Query("SELECT v FROM Veggie v JOIN FETCH v.category_primary c JOIN FETCH c.garden g LEFT JOIN FETCH v.category_secondary WHERE g.gardener.id = :gardener_id AND v.revision > :since ORDER BY g.id, c.name, v.id")
+  List<Veggie> findChangedSince(@Param("gardener_id") Long gardener_id, @Param("since") Long since);
+
 }
@@ -0,0 +1,53 @@
+package com.vegAppTest;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/*
+ * Changes of the schema that ddl-auto=update does not make (it only adds
+ * tables and columns), applied at startup once Hibernate updated the tables
+ * and before the requests are served.
+ * - Each one first reads the catalog and only runs its DDL when it is still
+ *   needed, so the boots after it ran do not lock the tables
+ * - The DDL is idempotent, for instances that start at the same time
+ */
+@Component
+public class SchemaMigrations {
+
+    /*
+     * The syncs used to be one per gardener, ddl-auto=update keeps the unique
+     * key of that time on gardener_id alone, whatever its generated name
+     */
+    private static final String SYNC_GARDENER_UNIQUE_KEYS = "SELECT quote_ident(c.conname) FROM pg_constraint c "
+            + "JOIN pg_class t ON t.oid = c.conrelid "
+            + "JOIN pg_attribute a ON a.attrelid = t.oid AND a.attname = 'gardener_id' "
+            + "WHERE t.relname = 'sync' AND t.relnamespace = to_regnamespace(current_schema()) "
+            + "AND c.contype = 'u' AND c.conkey = ARRAY[a.attnum]";
+
+    @Autowired
+    JdbcTemplate jdbc_template;
+
+    /* Built once the schema is updated (ddl-auto) */
+    @Autowired
+    EntityManagerFactory entity_manager_factory;
+
+    @PostConstruct
+    void migrate() {
+        dropSyncGardenerUniqueKey();
+    }
+
+    private void dropSyncGardenerUniqueKey() {
+
+        List<String> names = jdbc_template.queryForList(SYNC_GARDENER_UNIQUE_KEYS, String.class);
+        for (String name : names) {
+            jdbc_template.execute("ALTER TABLE sync DROP CONSTRAINT IF EXISTS " + name);
+        }
+    }
+
+}
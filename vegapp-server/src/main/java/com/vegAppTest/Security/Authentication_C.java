@@ -6,15 +6,16 @@ import com.vegAppTest.Entities.Gardener;
 import com.vegAppTest.Entities.Gardener.Role;
 import com.vegAppTest.Repositories.Gardener_R;
 import com.vegAppTest.Security.Service.JwtService;
+import com.vegAppTest.Security.Service.PasswordHashingService;
+import com.vegAppTest.Security.Service.PrincipalCacheService;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,49 +27,51 @@ public class Authentication_C {
 
     @Autowired
     private final Gardener_R gardener_repo;
-    private final PasswordEncoder passwordEncoder;
     private final JwtService jwt_service;
-    private final AuthenticationManager auth_manager;
+    private final PasswordHashingService password_hashing_service;
+    private final PrincipalCacheService principal_cache_service;
 
-    @PostMapping("/register")
-    public ResponseEntity<AuthenticationResponse> register(@RequestBody RegisterRequest request) {
+    /*
+     * The passwords are hashed and verified by PasswordHashingService, the
+     * request threads are released meanwhile (asynchronous responses). When
+     * its queue is full the client is told to retry later (503).
+     */
 
-        Gardener gardener = new Gardener(
-                request.getFirst_name(),
-                request.getLast_name(),
-                request.getEmail(),
-                passwordEncoder.encode(request.getPassword()),
-                Role.USER);
+    @PostMapping("/register")
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> register(@RequestBody RegisterRequest request) {
 
-        gardener_repo.save(gardener);
-        String jwt_token = jwt_service.generateToken(gardener);
-        return ResponseEntity.ok(AuthenticationResponse.builder()
-                .token(jwt_token)
-                .build());
+        return password_hashing_service.encode(request.getPassword()).thenApply(hash -> {
+            Gardener gardener = new Gardener(
+                    request.getFirst_name(),
+                    request.getLast_name(),
+                    request.getEmail(),
+                    hash,
+                    Role.USER);
 
+            gardener_repo.save(gardener);
+            /* The email may be the one of a deleted gardener, still cached */
+            principal_cache_service.evict(gardener.getEmail());
+            String jwt_token = jwt_service.generateToken(gardener);
+            return ResponseEntity.ok(AuthenticationResponse.builder()
+                    .token(jwt_token)
+                    .build());
+        }).exceptionally(PasswordHashingService::whenRejected);
     }
 
     @PostMapping("/authenticate")
-    public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request)
-            throws NotFoundException {
+    public CompletableFuture<ResponseEntity<AuthenticationResponse>> authenticate(
+            @RequestBody AuthenticationRequest request) {
 
-        auth_manager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(),
-                        request.getPassword())
-
-        );
         /*
          * If username (here email is our username) and password pair is correct, we
          * continue, else an 403 forbidden is given
          */
-
-        Gardener gardener = gardener_repo.findByEmail(request.getEmail())
-                .orElseThrow(() -> new NotFoundException());
-
-        String jwt_token = jwt_service.generateToken(gardener);
-        return ResponseEntity.ok(AuthenticationResponse.builder()
-                .token(jwt_token)
-                .build());
+        return password_hashing_service.verify(request.getEmail(), request.getPassword())
+                .thenApply(authenticated -> authenticated
+                        .map(value -> ResponseEntity.ok(AuthenticationResponse.builder()
+                                .token(jwt_service.generateToken(value))
+                                .build()))
+                        .orElseGet(() -> ResponseEntity.<AuthenticationResponse>status(HttpStatus.FORBIDDEN).build()))
+                .exceptionally(PasswordHashingService::whenRejected);
     }
 }
@@ -1,6 +1,7 @@
 package com.vegAppTest.Security.Config;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -30,10 +31,10 @@ public class ApplicationConfig {
     }
 
     @Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder password_encoder) {
         DaoAuthenticationProvider auth_provider = new DaoAuthenticationProvider();
         auth_provider.setUserDetailsService(userDetailsService());
-        auth_provider.setPasswordEncoder(passwordEncoder());
+        auth_provider.setPasswordEncoder(password_encoder);
         return auth_provider;
 
     }
@@ -43,9 +44,10 @@ public class ApplicationConfig {
         return config.getAuthenticationManager();
     }
 
+    /* Hashes of a lower strength are upgraded at the next login, see PasswordHashingService */
     @Bean
-    PasswordEncoder passwordEncoder() {
+    PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
 
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(strength);
     }
 }
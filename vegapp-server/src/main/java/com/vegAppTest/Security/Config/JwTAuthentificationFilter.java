@@ -5,13 +5,16 @@ import java.io.IOException;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import com.vegAppTest.Security.Service.JwtService;
+import com.vegAppTest.Security.Service.PrincipalCacheService;
+import com.vegAppTest.Security.Service.TokenRevocationService;
+
+import io.jsonwebtoken.Claims;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
@@ -29,7 +32,10 @@ public class JwTAuthentificationFilter extends OncePerRequestFilter {
     private final JwtService jwt_service;
 
     @Autowired
-    private UserDetailsService user_details_service;
+    private PrincipalCacheService principal_cache_service;
+
+    @Autowired
+    private TokenRevocationService token_revocation_service;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
@@ -38,7 +44,7 @@ public class JwTAuthentificationFilter extends OncePerRequestFilter {
 
         final String aut_header = request.getHeader("Authorization");
         final String jwt;
-        final String user_email;
+        final Claims claims;
 
         /* Check if Request contains the token in Header, return if not */
         if (aut_header == null || !aut_header.startsWith("Bearer ")) {
@@ -47,14 +53,19 @@ public class JwTAuthentificationFilter extends OncePerRequestFilter {
         }
 
         jwt = aut_header.substring(7);
-        user_email = jwt_service.extractUsername(jwt);
+        /* The only time the token is parsed and verified in the request */
+        claims = jwt_service.verify(jwt);
         /* Check if user is already logged in, if yes we won't check if user exists */
-        if (user_email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails user_details = this.user_details_service.loadUserByUsername(user_email);
-            if (jwt_service.isTokenValid(jwt, user_details)) {
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null
+                /* In memory, a revoked token is not authenticated */
+                && !token_revocation_service.isRevoked(claims)) {
+            UserDetails user_details = principal_cache_service.loadUserByUsername(claims.getSubject());
+            if (jwt_service.isTokenValid(claims, user_details)) {
+                /* The verified claims are kept as the credentials, the principal is the Gardener */
                 UsernamePasswordAuthenticationToken auth_token = new UsernamePasswordAuthenticationToken(
                         user_details,
-                        null,
+                        claims,
                         user_details.getAuthorities());
                 auth_token.setDetails(
                         new WebAuthenticationDetailsSource().buildDetails(request));
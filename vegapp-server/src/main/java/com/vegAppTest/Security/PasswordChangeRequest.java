@@ -0,0 +1,17 @@
+package com.vegAppTest.Security;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PasswordChangeRequest {
+
+    private String password;
+    private String new_password;
+
+}
@@ -1,23 +1,47 @@
 package com.vegAppTest.Security.Service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import com.vegAppTest.Entities.Gardener;
 import com.vegAppTest.Repositories.Gardener_R;
 
+import io.jsonwebtoken.Claims;
+
 @Service
 public class ControllerService {
 
     @Autowired
-    JwtService jwt_service;
+    Gardener_R gardener_repo;
 
     @Autowired
-    Gardener_R gardener_repo;
+    GardenAccessService garden_access_service;
+
+    /*
+     * Gardener of the request, authenticated by JwTAuthentificationFilter. The
+     * token is not parsed again : the principal set by the filter is used, as a
+     * reference of the persistence context of the request (no query until a
+     * field other than the id is read)
+     */
+    public Gardener getGardener() {
+        Gardener principal = (Gardener) authentication().getPrincipal();
+        return gardener_repo.getReferenceById(principal.getId());
+    }
+
+    /* Claims of the token of the request, verified by the filter */
+    public Claims getClaims() {
+        return (Claims) authentication().getCredentials();
+    }
+
+    /* Access of the gardener of the request to a garden, null if it has none (see GardenAccessService) */
+    public GardenAccessService.Access getAccess(Long garden_id) {
+        Gardener principal = (Gardener) authentication().getPrincipal();
+        return garden_access_service.getAccess(principal.getId(), garden_id);
+    }
 
-    public Gardener getGardenerFromToken(String token) {
-        String jwtToken = token.substring(7); // Remove "Bearer " prefix
-        String userEmail = jwt_service.extractUsername(jwtToken); // Extract user's email from JWT claims
-        return gardener_repo.getReferenceByEmail(userEmail);
+    private static Authentication authentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
     }
 }
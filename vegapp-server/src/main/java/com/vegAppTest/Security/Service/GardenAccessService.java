@@ -0,0 +1,135 @@
+package com.vegAppTest.Security.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Garden_R;
+
+/*   Services   */
+import com.vegAppTest.Services.BoundedCache;
+
+/*
+ * Gardens a gardener can access, and how : the gardens it owns, and those
+ * shared with it (role rows, see Role_C). Used by the controllers through
+ * ControllerService.getAccess, instead of loading the gardens of the gardener.
+ * - One entry per gardener, loaded with one query : sorted garden ids and their
+ *   access, in primitive arrays
+ * - Garden_C and Role_C invalidate the entries they change, now and once the
+ *   transaction is over
+ * - A garden that is not in an entry is looked up again before denying (a
+ *   garden created by another instance), unless the entry was loaded less
+ *   than auth.garden-access.miss-reload ago : requests on gardens that are
+ *   denied or do not exist reload it at most once per interval
+ * - Entries expire after auth.garden-access.ttl, which bounds how long another
+ *   instance keeps a revoked access, and the least recently used ones are
+ *   evicted over auth.garden-access.max-size
+ */
+@Service
+public class GardenAccessService {
+
+    /* Access of a gardener to a garden, from the most to the least */
+    public enum Access {
+        OWNER,
+        ADMIN,
+        OBSERVER;
+
+        /* Value of role.role, 1 for admin and 2 for observer */
+        static Access ofRole(int role) {
+            return role == 1 ? ADMIN : role == 2 ? OBSERVER : null;
+        }
+
+        public boolean isOwner() {
+            return this == OWNER;
+        }
+    }
+
+    /*
+     * Immutable once built, garden_ids is sorted and accesses[i] is the access to
+     * garden_ids[i]; loaded_at is in System.nanoTime()
+     */
+    private record Entry(long[] garden_ids, byte[] accesses, long loaded_at) {
+
+        Access find(long garden_id) {
+            int index = Arrays.binarySearch(garden_ids, garden_id);
+            return index < 0 ? null : Access.values()[accesses[index]];
+        }
+    }
+
+    @Autowired
+    Garden_R garden_repo;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${auth.garden-access.ttl:PT5M}")
+    Duration ttl;
+
+    @Value("${auth.garden-access.max-size:10000}")
+    int max_size;
+
+    @Value("${auth.garden-access.miss-reload:PT1S}")
+    Duration miss_reload;
+
+    private BoundedCache<Long, Entry> accesses;
+
+    @PostConstruct
+    void createCache() {
+        accesses = new BoundedCache<>("auth.garden.access", ttl, max_size, meter_registry);
+    }
+
+    /* Access of the gardener to the garden, null if it has none */
+    public Access getAccess(Long gardener_id, Long garden_id) {
+
+        if (gardener_id == null || garden_id == null) {
+            return null;
+        }
+        return accesses.get(gardener_id, entry -> entry.find(garden_id) != null || !canReload(entry), this::load)
+                .find(garden_id);
+    }
+
+    /* The gardens or the roles of that gardener changed (applied now and once the transaction is over) */
+    public void invalidate(Long gardener_id) {
+        accesses.invalidateAfterTransaction(gardener_id);
+    }
+
+    /* That garden was deleted, whoever had access to it */
+    public void forgetGarden(Long garden_id) {
+        accesses.invalidateIfAfterTransaction(entry -> entry.find(garden_id) != null);
+    }
+
+    private boolean canReload(Entry entry) {
+        return System.nanoTime() - entry.loaded_at() >= miss_reload.toNanos();
+    }
+
+    private Entry load(Long gardener_id) {
+
+        long loaded_at = System.nanoTime();
+        /* Ordered by garden id, then from the highest access */
+        List<Object[]> rows = garden_repo.findAccessByGardenerId(gardener_id);
+        long[] garden_ids = new long[rows.size()];
+        byte[] accesses = new byte[rows.size()];
+        int size = 0;
+        for (Object[] row : rows) {
+            long garden_id = ((Number) row[0]).longValue();
+            int role = ((Number) row[1]).intValue();
+            Access access = role == 0 ? Access.OWNER : Access.ofRole(role);
+            /* Owned and shared with itself : only the first (highest) access is kept */
+            if (access == null || (size > 0 && garden_ids[size - 1] == garden_id)) {
+                continue;
+            }
+            garden_ids[size] = garden_id;
+            accesses[size++] = (byte) access.ordinal();
+        }
+        return new Entry(Arrays.copyOf(garden_ids, size), Arrays.copyOf(accesses, size), loaded_at);
+    }
+
+}
@@ -4,22 +4,47 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 
+/*
+ * The key and the parser are built once, they are immutable and thread-safe.
+ * A request verifies its token once (see verify, JwTAuthentificationFilter),
+ * the controllers then use the principal of the security context.
+ * Every token has an id (jti), so that it can be revoked (see TokenRevocationService).
+ */
 @Service
 public class JwtService {
 
     private static final String SECRET_KEY = "784a4b207a6d4a7b4d5f464e3b3379705e27562027506b4055532b2b687e4c3f";
 
+    private final Key sign_in_key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(sign_in_key).build();
+
+    /*
+     * Claims of a token whose signature is valid and that has not expired
+     * (the parser checks the expiration), null otherwise
+     */
+    public Claims verify(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     public String extractUsername(String token) {
 
         return extractClaim(token, Claims::getSubject);
@@ -39,6 +64,7 @@ public class JwtService {
                 .builder()
                 .setClaims(extra_claims)
                 .setSubject(user_details.getUsername())
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + (52 * 7 * 24 * 60 * 60 * 1000))) // This line is to
                                                                                                       // set an
@@ -54,13 +80,13 @@ public class JwtService {
         return (username.equals(user_details.getUsername())) && !isTokenExpired(token);
     }
 
+    /* Same, for the claims of a verified token */
+    public boolean isTokenValid(Claims claims, UserDetails user_details) {
+        return claims.getSubject().equals(user_details.getUsername()) && !claims.getExpiration().before(new Date());
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private boolean isTokenExpired(String token) {
@@ -78,7 +104,6 @@ public class JwtService {
     }
 
     private Key getSignInKey() {
-        byte[] key_bytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(key_bytes);
+        return sign_in_key;
     }
 }
@@ -0,0 +1,179 @@
+package com.vegAppTest.Security.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Repositories.Gardener_R;
+
+/*
+ * BCrypt hashing and verification of the passwords, off the request threads.
+ * - auth.hashing.threads workers (the number of cores when 0), so a burst of
+ *   logins uses at most that much CPU and the other requests keep their share
+ * - The workers only hash : the gardeners are read and their passwords updated
+ *   on the application task executor, where the returned futures complete and
+ *   what the callers chain (DB writes) runs. Not on the request thread : with
+ *   open-in-view its connection would be held while the hash waits
+ * - At most auth.hashing.queue-capacity waiting jobs, more are rejected : the
+ *   future fails with a RejectedExecutionException, see whenRejected
+ * - A hash made at a lower cost than auth.bcrypt.strength is re-hashed at the
+ *   login that verifies it
+ *
+ * Metrics : auth.hashing.queue.depth, auth.hashing.active, auth.hashing.wait
+ * (time in the queue), auth.hashing.rejected and auth.hashing.rehashed.
+ */
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    PasswordEncoder password_encoder;
+
+    @Autowired
+    Gardener_R gardener_repo;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    Executor completion_executor;
+
+    @Value("${auth.hashing.threads:0}")
+    int threads;
+
+    @Value("${auth.hashing.queue-capacity:256}")
+    int queue_capacity;
+
+    private ThreadPoolExecutor executor;
+
+    /* Compared with when the email is unknown, so that it takes as long as a wrong password */
+    private String dummy_hash;
+
+    private Timer wait_timer;
+    private Counter rejected;
+    private Counter rehashed;
+
+    @PostConstruct
+    void start() {
+        int pool_size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(pool_size, pool_size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue_capacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        dummy_hash = password_encoder.encode("dummy password");
+
+        Gauge.builder("auth.hashing.queue.depth", executor, pool -> pool.getQueue().size()).register(meter_registry);
+        Gauge.builder("auth.hashing.active", executor, ThreadPoolExecutor::getActiveCount).register(meter_registry);
+        wait_timer = Timer.builder("auth.hashing.wait").register(meter_registry);
+        rejected = Counter.builder("auth.hashing.rejected").register(meter_registry);
+        rehashed = Counter.builder("auth.hashing.rehashed").register(meter_registry);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    /* Hash of a new password */
+    public CompletableFuture<String> encode(String raw_password) {
+        return submit(() -> password_encoder.encode(raw_password)).thenApplyAsync(hash -> hash, completion_executor);
+    }
+
+    /* Gardener of that email if the password is right, empty otherwise */
+    public CompletableFuture<Optional<Gardener>> verify(String email, String raw_password) {
+
+        return findByEmail(email).thenCompose(gardener -> {
+            String hash = gardener.map(Gardener::getPassword).orElse(dummy_hash);
+
+            /* The hash to keep if the password is right, a new one when it was made at a lower cost */
+            return submit(() -> {
+                if (!password_encoder.matches(raw_password, hash) || gardener.isEmpty()) {
+                    return null;
+                }
+                return password_encoder.upgradeEncoding(hash) ? password_encoder.encode(raw_password) : hash;
+            }).thenApplyAsync(verified_hash -> {
+                if (verified_hash == null) {
+                    return Optional.<Gardener>empty();
+                }
+                if (!verified_hash.equals(hash)) {
+                    gardener_repo.updatePassword(gardener.get().getId(), verified_hash);
+                    rehashed.increment();
+                }
+                return gardener;
+            }, completion_executor);
+        });
+    }
+
+    /* Gardener of that email with its new password if the current one is right, empty otherwise */
+    public CompletableFuture<Optional<Gardener>> change(String email, String raw_password, String new_raw_password) {
+
+        return findByEmail(email).thenCompose(gardener -> {
+            String hash = gardener.map(Gardener::getPassword).orElse(dummy_hash);
+
+            return submit(() -> password_encoder.matches(raw_password, hash) && gardener.isPresent()
+                    ? password_encoder.encode(new_raw_password)
+                    : null).thenApplyAsync(new_hash -> {
+                        if (new_hash == null) {
+                            return Optional.<Gardener>empty();
+                        }
+                        gardener_repo.updatePassword(gardener.get().getId(), new_hash);
+                        return gardener;
+                    }, completion_executor);
+        });
+    }
+
+    /* For the exceptionally of the responses : 503 when the hashing queue was full, other failures are kept */
+    public static <T> ResponseEntity<T> whenRejected(Throwable failure) {
+
+        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+    }
+
+    private CompletableFuture<Optional<Gardener>> findByEmail(String email) {
+        return CompletableFuture.supplyAsync(() -> gardener_repo.findByEmail(email), completion_executor);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> job) {
+
+        long queued = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                wait_timer.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                return job.get();
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+}
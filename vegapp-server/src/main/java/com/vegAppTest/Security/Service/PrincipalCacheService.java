@@ -0,0 +1,71 @@
+package com.vegAppTest.Security.Service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Repositories.Gardener_R;
+import com.vegAppTest.Services.BoundedCache;
+
+/*
+ * Principals of the authenticated requests, by email (the subject of the
+ * tokens), so that JwTAuthentificationFilter does not read the gardener table
+ * on every request. ControllerService gets the same principal from the
+ * security context.
+ * - Entries are copies of the gardener without its gardens, shared by the
+ *   requests and never modified
+ * - They expire after auth.principal-cache.ttl, which bounds how long another
+ *   instance keeps a deleted gardener, and the least recently used ones are
+ *   evicted over auth.principal-cache.max-size
+ * - The login (DaoAuthenticationProvider) keeps reading the DB
+ */
+@Service
+public class PrincipalCacheService {
+
+    @Autowired
+    Gardener_R gardener_repo;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${auth.principal-cache.ttl:PT5M}")
+    Duration ttl;
+
+    @Value("${auth.principal-cache.max-size:10000}")
+    int max_size;
+
+    private BoundedCache<String, Gardener> principals;
+
+    @PostConstruct
+    void createCache() {
+        principals = new BoundedCache<>("auth.principal.cache", ttl, max_size, meter_registry);
+    }
+
+    public Gardener loadUserByUsername(String email) throws UsernameNotFoundException {
+
+        return principals.get(email, key -> copy(gardener_repo.findByEmail(key)
+                .orElseThrow(() -> new UsernameNotFoundException("!!!!!!!!!!! User not found"))));
+    }
+
+    /* The gardener of that email was created or deleted */
+    public void evict(String email) {
+        principals.invalidate(email);
+    }
+
+    private static Gardener copy(Gardener gardener) {
+
+        Gardener principal = new Gardener(gardener.getFirst_name(), gardener.getLast_name(), gardener.getEmail(),
+                gardener.getPassword(), gardener.getRole());
+        principal.setId(gardener.getId());
+        principal.setGardens(null);
+        return principal;
+    }
+
+}
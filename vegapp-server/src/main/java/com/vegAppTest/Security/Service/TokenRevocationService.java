@@ -0,0 +1,207 @@
+package com.vegAppTest.Security.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/*   Entities   */
+import com.vegAppTest.Entities.RevokedToken;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.RevokedToken_R;
+
+/*
+ * Revoked tokens, checked by JwTAuthentificationFilter on every request
+ * without reading the DB. Two kinds of revocation, both kept in the
+ * revoked_token table until the tokens would have expired :
+ * - one token, by its id (jti) : logout
+ * - every token of a subject (email) issued before a date : password change,
+ *   deleted gardener, and logout with a token issued before the tokens had a jti
+ *
+ * The keys (jtis and subjects) are in a Bloom filter in front of the exact set
+ * and map, so a token that is not revoked (nearly all of them) costs a few
+ * bit tests. The whole state is immutable and replaced on every change; it is
+ * loaded at startup, gets the revocations of the other instances every
+ * auth.revocation.refresh, and is reloaded without the expired ones every
+ * auth.revocation.purge (which also catches a row whose id was committed after
+ * a greater one).
+ *
+ * The issued-at of a token is in seconds : a subject revocation spares the
+ * tokens issued in the same second, among them the one given with it.
+ */
+@Service
+public class TokenRevocationService {
+
+    /* Longest validity of a token, how long a subject revocation is kept */
+    private static final Duration TOKEN_VALIDITY = Duration.ofDays(52 * 7);
+
+    /* Bits of the Bloom filter per key, and bits tested per key (about 1% of false positives) */
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 7;
+    private static final int MIN_BITS = 1 << 13;
+
+    /* Immutable once built */
+    private record State(long[] bits, Set<String> jtis, Map<String, Long> issued_before, long last_id) {
+    }
+
+    @Autowired
+    RevokedToken_R revoked_token_repo;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    private volatile State state = build(Set.of(), Map.of(), 0);
+
+    private Counter rejected;
+
+    @PostConstruct
+    void load() {
+        rejected = Counter.builder("auth.revocation.rejected").register(meter_registry);
+        refresh();
+        Gauge.builder("auth.revocation.size", this, service -> service.state.jtis().size()
+                + service.state.issued_before().size()).register(meter_registry);
+    }
+
+    /* Whether the token of these (verified) claims has been revoked */
+    public boolean isRevoked(Claims claims) {
+
+        State current = state;
+        String jti = claims.getId();
+        if (jti != null && mightContain(current.bits(), jti) && current.jtis().contains(jti)) {
+            rejected.increment();
+            return true;
+        }
+        String subject = claims.getSubject();
+        if (mightContain(current.bits(), subject)) {
+            Long issued_before = current.issued_before().get(subject);
+            Date issued_at = claims.getIssuedAt();
+            if (issued_before != null && (issued_at == null || issued_at.getTime() < issued_before)) {
+                rejected.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /* Revokes the token of these claims (logout) */
+    public void revoke(Claims claims) {
+
+        if (claims.getId() == null) {
+            /* Older token, without jti : the tokens of the subject issued up to it */
+            revokeSubject(claims.getSubject(), new Date(claims.getIssuedAt().getTime() + 1000));
+            return;
+        }
+        save(new RevokedToken(claims.getId(), null, null, claims.getExpiration()));
+    }
+
+    /* Revokes the tokens of that subject issued until now (password change, deleted gardener) */
+    public void revokeSubject(String subject) {
+        revokeSubject(subject, new Date(System.currentTimeMillis() / 1000 * 1000));
+    }
+
+    private void revokeSubject(String subject, Date issued_before) {
+        save(new RevokedToken(null, subject, issued_before,
+                new Date(System.currentTimeMillis() + TOKEN_VALIDITY.toMillis())));
+    }
+
+    private synchronized void save(RevokedToken revoked_token) {
+        revoked_token_repo.save(revoked_token);
+        state = with(state, List.of(revoked_token));
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh:PT30S}", initialDelayString = "${auth.revocation.refresh:PT30S}")
+    public synchronized void refresh() {
+
+        List<RevokedToken> added = revoked_token_repo.findActiveAfter(state.last_id(), new Date());
+        if (!added.isEmpty()) {
+            state = with(state, added);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge:PT1H}", initialDelayString = "${auth.revocation.purge:PT1H}")
+    public synchronized void purge() {
+
+        Date now = new Date();
+        revoked_token_repo.deleteExpired(now);
+        state = with(build(Set.of(), Map.of(), 0), revoked_token_repo.findActiveAfter(0L, now));
+    }
+
+    private static State with(State state, List<RevokedToken> added) {
+
+        Set<String> jtis = new HashSet<>(state.jtis());
+        Map<String, Long> issued_before = new HashMap<>(state.issued_before());
+        long last_id = state.last_id();
+        for (RevokedToken revoked_token : added) {
+            if (revoked_token.getJti() != null) {
+                jtis.add(revoked_token.getJti());
+            }
+            if (revoked_token.getSubject() != null) {
+                issued_before.merge(revoked_token.getSubject(), revoked_token.getIssued_before().getTime(), Math::max);
+            }
+            last_id = Math.max(last_id, revoked_token.getId());
+        }
+        return build(jtis, issued_before, last_id);
+    }
+
+    private static State build(Set<String> jtis, Map<String, Long> issued_before, long last_id) {
+
+        int keys = jtis.size() + issued_before.size();
+        long[] bits = new long[Math.max(MIN_BITS, Integer.highestOneBit(Math.max(1, keys * BITS_PER_KEY)) << 1) / 64];
+        jtis.forEach(jti -> add(bits, jti));
+        issued_before.keySet().forEach(subject -> add(bits, subject));
+        return new State(bits, jtis, issued_before, last_id);
+    }
+
+    /* Double hashing : the HASHES bit indexes are h1 + i * h2, both from one 64 bits mix of the key */
+    private static void add(long[] bits, String key) {
+
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = bits.length * 64 - 1;
+        for (int i = 0; i < HASHES; i++) {
+            int index = (h1 + i * h2) & mask;
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private static boolean mightContain(long[] bits, String key) {
+
+        long hash = mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        int mask = bits.length * 64 - 1;
+        for (int i = 0; i < HASHES; i++) {
+            int index = (h1 + i * h2) & mask;
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* Finalizer of MurmurHash3 */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a87c5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.vegAppTest.Services;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/*
+ * In-process cache of the services that keep an entry per gardener or per
+ * garden (PrincipalCacheService, GardenAccessService, NameResolutionService,
+ * PlotHistoryService), which only load and validate their entries.
+ * - Entries expire after ttl (never when it is null) and the least recently
+ *   used ones are evicted over max_size
+ * - A load that overlaps an invalidation is returned but not stored : it may
+ *   have read the rows from before the invalidated write
+ * - Meters <name>.hits, <name>.misses, <name>.hit.ratio and <name>.size
+ * Values are shared by the requests, they must not be modified once loaded.
+ */
+public class BoundedCache<K, V> {
+
+    private record Entry<V>(V value, long expires_at) {
+    }
+
+    /* 0 when the entries do not expire */
+    private final long ttl_nanos;
+    private final int max_size;
+
+    /* Access ordered, the eldest entry is the least recently used; guarded by this */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /* Incremented by every invalidation, a load that overlaps one is not stored; guarded by this */
+    private long invalidations_seen = 0;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public BoundedCache(String name, Duration ttl, int max_size, MeterRegistry meter_registry) {
+
+        this.ttl_nanos = ttl == null ? 0 : ttl.toNanos();
+        this.max_size = max_size;
+        hits = Counter.builder(name + ".hits").register(meter_registry);
+        misses = Counter.builder(name + ".misses").register(meter_registry);
+        Gauge.builder(name + ".hit.ratio", this, cache -> cache.hitRatio()).register(meter_registry);
+        Gauge.builder(name + ".size", this, cache -> cache.currentSize()).register(meter_registry);
+    }
+
+    /* Value of the key, null if there is none or it expired; neither a hit nor a miss */
+    public V getIfPresent(K key) {
+
+        Entry<V> entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        return entry != null && (ttl_nanos == 0 || entry.expires_at() - System.nanoTime() > 0) ? entry.value()
+                : null;
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        return get(key, value -> true, loader);
+    }
+
+    /* The cached value if usable is true for it, else the value loaded (and stored) */
+    public V get(K key, Predicate<V> usable, Function<K, V> loader) {
+
+        V value = getIfPresent(key);
+        if (value != null && usable.test(value)) {
+            hits.increment();
+            return value;
+        }
+        return load(key, loader);
+    }
+
+    /* Loads the value, outside of the lock, and stores it unless it is null or an invalidation overlapped */
+    public V load(K key, Function<K, V> loader) {
+
+        long invalidations;
+        synchronized (this) {
+            invalidations = invalidations_seen;
+        }
+        misses.increment();
+        V value = loader.apply(key);
+
+        synchronized (this) {
+            if (value != null && invalidations == invalidations_seen) {
+                entries.put(key, new Entry<>(value, System.nanoTime() + ttl_nanos));
+                Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+                while (entries.size() > max_size && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+        invalidations_seen++;
+    }
+
+    public synchronized void invalidateIf(Predicate<V> stale) {
+        entries.values().removeIf(entry -> stale.test(entry.value()));
+        invalidations_seen++;
+    }
+
+    /* Same as invalidate, applied now and once the transaction is committed or rolled back */
+    public void invalidateAfterTransaction(K key) {
+        afterTransaction(() -> invalidate(key));
+    }
+
+    public void invalidateIfAfterTransaction(Predicate<V> stale) {
+        afterTransaction(() -> invalidateIf(stale));
+    }
+
+    /*
+     * Now, so that the request that writes sees its change, and once the
+     * transaction is over, so that neither a load that read the rows before the
+     * commit nor one that read the rows of a rolled back write is kept
+     */
+    private static void afterTransaction(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private synchronized int currentSize() {
+        return entries.size();
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.vegAppTest.Services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/*
+ * ETags of the GET endpoints, derived from the revision counters only.
+ * Call it before anything else in the endpoint: when it returns true the
+ * response is already a 304 and the endpoint must return null.
+ */
+@Service
+public class ETagService {
+
+    /* The client must revalidate, but may keep the body in its private cache */
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    PayloadFormatService payload_format_service;
+
+    /* For a body built from any garden of the gardener */
+    public boolean checkGardener(WebRequest request, Long gardener_id) {
+        return check(request, gardener_id, "all", revision_service.current(gardener_id));
+    }
+
+    /* Same, with the revision of the gardener already read by the caller */
+    public boolean checkGardener(WebRequest request, Long gardener_id, Long revision) {
+        return check(request, gardener_id, "all", revision);
+    }
+
+    /* For a body built from one garden, false (no ETag) if it does not belong to the gardener */
+    public boolean checkGarden(WebRequest request, Long gardener_id, Long garden_id) {
+
+        Long revision = revision_service.currentGarden(gardener_id, garden_id);
+        if (revision == null) {
+            return false;
+        }
+        return check(request, gardener_id, garden_id.toString(), revision);
+    }
+
+    /*
+     * Weak ETag : the same value is used for the plain and gzipped bodies. The
+     * gardener is part of it since the URLs are the same for every gardener.
+     */
+    private boolean check(WebRequest request, Long gardener_id, String scope, Long revision) {
+
+        PayloadFormatService.Format format = payload_format_service.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String etag = "W/\"" + gardener_id + "-" + scope + "-" + revision + "-" + format.name().toLowerCase() + "\"";
+
+        if (request instanceof ServletWebRequest servlet_request && servlet_request.getResponse() != null) {
+            servlet_request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(etag);
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.vegAppTest.Services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Published by RevisionService each time a write goes into a garden, or
+ * removes it (revision is then null). Unlike GardenerChangedEvent it is meant
+ * for listeners that must run inside the write transaction (BEFORE_COMMIT).
+ */
+@Getter
+@AllArgsConstructor
+public class GardenChangedEvent {
+
+    private final Long gardener_id;
+    private final Long garden_id;
+    private final Long revision;
+
+    public boolean isDeleted() {
+        return revision == null;
+    }
+
+}
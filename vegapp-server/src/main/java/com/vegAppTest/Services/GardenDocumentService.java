@@ -0,0 +1,120 @@
+package com.vegAppTest.Services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.GardenDocument_R;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+
+/*
+ * Read model of the gardens : one JSONB document per garden holding its
+ * /init/{garden_id} body. It is rebuilt in the transaction of every write into
+ * the garden, so it is as durable and consistent as the tables themselves and
+ * shared by every instance of the server. A transaction that writes many times
+ * into a garden (PUT /sync/batch) rebuilds its document once, before commit.
+ */
+@Service
+@Transactional
+public class GardenDocumentService {
+
+    @Autowired
+    GardenDocument_R garden_document_repo;
+
+    @Autowired
+    InitSnapshotService init_snapshot_service;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    ObjectMapper object_mapper;
+
+    @PersistenceContext
+    EntityManager entity_manager;
+
+    /*
+     * Collects the gardens written by the transaction, the last event of each
+     * one wins; outside of a transaction there is nothing to rebuild before
+     */
+    @EventListener
+    public void onGardenChanged(GardenChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<Long, GardenChangedEvent> changed = (Map<Long, GardenChangedEvent>) TransactionSynchronizationManager
+                .getResource(this);
+        if (changed == null) {
+            Map<Long, GardenChangedEvent> gardens = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, gardens);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean read_only) {
+                    apply(gardens.values());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(GardenDocumentService.this);
+                }
+            });
+            changed = gardens;
+        }
+        changed.put(event.getGarden_id(), event);
+    }
+
+    /* Runs once the controller is done with its writes, before they are committed */
+    private void apply(Iterable<GardenChangedEvent> events) {
+
+        /* The document is read from what is stored; the entities of the request stay attached */
+        entity_manager.flush();
+        for (GardenChangedEvent event : events) {
+            if (event.isDeleted()) {
+                garden_document_repo.deleteByGardenId(event.getGarden_id());
+            } else {
+                rebuild(event.getGardener_id(), event.getGarden_id(), event.getRevision());
+            }
+        }
+    }
+
+    /* JSON document of a garden, null if it does not belong to the gardener */
+    public String find(Long gardener_id, Long garden_id) {
+
+        String document = garden_document_repo.findDocument(gardener_id, garden_id);
+        if (document != null) {
+            return document;
+        }
+
+        /* Gardens not written since the read model exists */
+        Long revision = revision_service.currentGarden(gardener_id, garden_id);
+        if (revision == null) {
+            return null;
+        }
+        rebuild(gardener_id, garden_id, revision);
+        return garden_document_repo.findDocument(gardener_id, garden_id);
+    }
+
+    private void rebuild(Long gardener_id, Long garden_id, Long revision) {
+        try {
+            String document = object_mapper.writeValueAsString(init_snapshot_service.loadGarden(garden_id));
+            garden_document_repo.upsert(gardener_id, garden_id, revision, document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the document of garden " + garden_id, e);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.vegAppTest.Services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Published by RevisionService each time a write takes a new revision of a
+ * gardener. Listen to it with @TransactionalEventListener to only react once
+ * the write is committed.
+ */
+@Getter
+@AllArgsConstructor
+public class GardenerChangedEvent {
+
+    private final Long gardener_id;
+    private final Long revision;
+
+}
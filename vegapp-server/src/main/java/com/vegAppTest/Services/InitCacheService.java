@@ -0,0 +1,279 @@
+package com.vegAppTest.Services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/*
+ * In-process cache of the serialized /init and /init/{garden_id} bodies, one
+ * entry per payload format.
+ * - Entries are grouped by gardener and dropped as soon as a write of that
+ *   gardener is committed (see GardenerChangedEvent)
+ * - Each entry keeps the revision of the gardener it was built at; the caller
+ *   gives the committed revision (read anyway for the ETag) and an entry of
+ *   another revision is a miss : a write committed by another instance, or one
+ *   that did not go through this JVM
+ * - Concurrent misses on the same key wait for a single load
+ * - The gardeners used least recently are evicted once the plain and gzipped
+ *   bodies go over init.cache.max-bytes
+ */
+@Service
+public class InitCacheService {
+
+    /* Body of a snapshot in one format, ready to be written as is */
+    public static class Entry {
+
+        private final Long revision;
+        private final byte[] body;
+        private final byte[] gzip;
+
+        Entry(Long revision, byte[] body, byte[] gzip) {
+            this.revision = revision;
+            this.body = body;
+            this.gzip = gzip;
+        }
+
+        public Long getRevision() {
+            return revision;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        long size() {
+            return body.length + gzip.length;
+        }
+    }
+
+    /* garden_id is null for the snapshot of every garden of the gardener */
+    private record Key(Long gardener_id, Long garden_id, PayloadFormatService.Format format) {
+    }
+
+    /* Entries of one gardener, evicted together */
+    private static class GardenerEntries {
+        final Map<Key, Entry> by_key = new HashMap<>();
+        long size = 0;
+    }
+
+    /* Returned by a load when the garden does not belong to the gardener */
+    private static final Entry NOT_FOUND = new Entry(null, new byte[0], new byte[0]);
+
+    @Autowired
+    InitSnapshotService init_snapshot_service;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    GardenDocumentService garden_document_service;
+
+    @Autowired
+    PayloadFormatService payload_format_service;
+
+    @Autowired
+    PlatformTransactionManager transaction_manager;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${init.cache.max-bytes:67108864}")
+    long max_bytes;
+
+    /* Access ordered, the eldest gardener is the least recently used; guarded by this */
+    private final LinkedHashMap<Long, GardenerEntries> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, CompletableFuture<Entry>> loading = new HashMap<>();
+    private long size = 0;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+    private Timer load_timer;
+
+    @PostConstruct
+    void registerMetrics() {
+        hits = Counter.builder("init.cache.hits").register(meter_registry);
+        misses = Counter.builder("init.cache.misses").register(meter_registry);
+        evictions = Counter.builder("init.cache.evictions").register(meter_registry);
+        load_timer = Timer.builder("init.cache.load").register(meter_registry);
+        Gauge.builder("init.cache.size", this, cache -> cache.currentSize()).baseUnit("bytes")
+                .register(meter_registry);
+    }
+
+    /* Snapshot of every garden of the gardener, revision is its committed revision (RevisionService.current) */
+    public Entry getGardener(Long gardener_id, Long revision, PayloadFormatService.Format format) {
+        return get(new Key(gardener_id, null, format), revision);
+    }
+
+    /* Snapshot of one garden, null if it does not belong to the gardener */
+    public Entry getGarden(Long gardener_id, Long garden_id, Long revision, PayloadFormatService.Format format) {
+        Entry entry = get(new Key(gardener_id, garden_id, format), revision);
+        return entry == NOT_FOUND ? null : entry;
+    }
+
+    @TransactionalEventListener
+    public void onGardenerChanged(GardenerChangedEvent event) {
+        invalidate(event.getGardener_id());
+    }
+
+    public synchronized void invalidate(Long gardener_id) {
+        GardenerEntries gardener_entries = entries.remove(gardener_id);
+        if (gardener_entries != null) {
+            size -= gardener_entries.size;
+        }
+
+        /* A load started before the commit may have read the old rows, it must not be stored */
+        loading.keySet().removeIf(key -> key.gardener_id().equals(gardener_id));
+    }
+
+    private Entry get(Key key, Long revision) {
+
+        CompletableFuture<Entry> future;
+        boolean owner = false;
+
+        synchronized (this) {
+            GardenerEntries gardener_entries = entries.get(key.gardener_id());
+            Entry entry = gardener_entries == null ? null : gardener_entries.by_key.get(key);
+            if (entry != null && Objects.equals(entry.getRevision(), revision)) {
+                hits.increment();
+                return entry;
+            }
+
+            future = loading.get(key);
+            if (future != null) {
+                hits.increment();
+            } else {
+                future = new CompletableFuture<>();
+                loading.put(key, future);
+                misses.increment();
+                owner = true;
+            }
+        }
+
+        /* Another request is already loading this key, from a revision at least as recent or not */
+        if (!owner) {
+            Entry entry = future.join();
+            if (entry == NOT_FOUND || isAtLeast(entry.getRevision(), revision)) {
+                return entry;
+            }
+            return load_timer.record(() -> load(key, revision));
+        }
+
+        try {
+            Entry entry = load_timer.record(() -> load(key, revision));
+            synchronized (this) {
+                if (loading.remove(key, future) && entry != NOT_FOUND) {
+                    store(key, entry);
+                }
+            }
+            future.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loading.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static boolean isAtLeast(Long revision, Long expected) {
+        return expected == null || (revision != null && revision >= expected);
+    }
+
+    /* revision was read before, so that the body is at least as recent as it */
+    private Entry load(Key key, Long revision) {
+
+        /* A single garden is read from its document, see GardenDocumentService */
+        if (key.garden_id() != null) {
+            String document = garden_document_service.find(key.gardener_id(), key.garden_id());
+            if (document == null) {
+                return NOT_FOUND;
+            }
+            return compress(revision, key.format() == PayloadFormatService.Format.JSON
+                    ? document.getBytes(StandardCharsets.UTF_8)
+                    : payload_format_service.fromJson(document, key.format()));
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transaction_manager);
+        transaction.setReadOnly(true);
+
+        return transaction.execute(status -> {
+            try {
+                return compress(revision, payload_format_service.mapper(key.format())
+                        .writeValueAsBytes(init_snapshot_service.loadGardener(key.gardener_id())));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Entry compress(Long revision, byte[] bytes) {
+        try {
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+                output.write(bytes);
+            }
+
+            return new Entry(revision, bytes, gzip.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* Called with the lock held */
+    private void store(Key key, Entry entry) {
+
+        if (entry.size() > max_bytes) {
+            return;
+        }
+
+        GardenerEntries gardener_entries = entries.computeIfAbsent(key.gardener_id(), id -> new GardenerEntries());
+        Entry previous = gardener_entries.by_key.put(key, entry);
+        long delta = entry.size() - (previous == null ? 0 : previous.size());
+        gardener_entries.size += delta;
+        size += delta;
+
+        var eldest = entries.entrySet().iterator();
+        while (size > max_bytes && eldest.hasNext()) {
+            var evicted = eldest.next();
+            if (Objects.equals(evicted.getKey(), key.gardener_id())) {
+                continue;
+            }
+            size -= evicted.getValue().size;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized long currentSize() {
+        return size;
+    }
+
+}
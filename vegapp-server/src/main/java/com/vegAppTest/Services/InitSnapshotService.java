@@ -0,0 +1,115 @@
+package com.vegAppTest.Services;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.CategoryPrimary_R;
+import com.vegAppTest.Repositories.CategorySecondary_R;
+import com.vegAppTest.Repositories.Garden_R;
+import com.vegAppTest.Repositories.Plant_R;
+import com.vegAppTest.Repositories.Plot_R;
+import com.vegAppTest.Repositories.Tombstone_R;
+import com.vegAppTest.Repositories.Veggie_R;
+import com.vegAppTest.Wrapper.DeltaResponse;
+import com.vegAppTest.Wrapper.InitResponse;
+
+import jakarta.transaction.Transactional;
+
+/*
+ * Builds the init snapshot of a gardener (or of one of his gardens) with one
+ * query per table, whatever the number of gardens, categories and plots.
+ */
+@Service
+@Transactional
+public class InitSnapshotService {
+
+    @Autowired
+    Garden_R garden_repo;
+
+    @Autowired
+    CategoryPrimary_R category_primary_repo;
+
+    @Autowired
+    CategorySecondary_R category_secondary_repo;
+
+    @Autowired
+    Veggie_R veggie_repo;
+
+    @Autowired
+    Plot_R plot_repo;
+
+    @Autowired
+    Plant_R plant_repo;
+
+    @Autowired
+    Tombstone_R tombstone_repo;
+
+    @Autowired
+    RevisionService revision_service;
+
+    /* All the gardens of a gardener */
+    public InitResponse loadGardener(Long gardener_id) {
+
+        InitResponse init_response = new InitResponse();
+
+        init_response.setGarden_list(garden_repo.findAllByGardenerId(gardener_id));
+        init_response.addCategoryPrimary(collect(category_primary_repo.streamSnapshotByGardenerId(gardener_id)));
+        init_response.addCategorySecondary(collect(category_secondary_repo.streamSnapshotByGardenerId(gardener_id)));
+        init_response.addVegetable(collect(veggie_repo.streamSnapshotByGardenerId(gardener_id)));
+        init_response.addPlot(collect(plot_repo.streamSnapshotByGardenerId(gardener_id)));
+        init_response.addPlant(collect(plant_repo.streamSnapshotByGardenerId(gardener_id)));
+
+        return init_response;
+    }
+
+    /* A single garden, the ownership must be checked by the caller */
+    public InitResponse loadGarden(Long garden_id) {
+
+        InitResponse init_response = new InitResponse();
+
+        init_response.addCategoryPrimary(collect(category_primary_repo.streamSnapshotByGardenId(garden_id)));
+        init_response.addCategorySecondary(collect(category_secondary_repo.streamSnapshotByGardenId(garden_id)));
+        init_response.addVegetable(collect(veggie_repo.streamSnapshotByGardenId(garden_id)));
+        init_response.addPlot(collect(plot_repo.streamSnapshotByGardenId(garden_id)));
+        init_response.addPlant(collect(plant_repo.streamSnapshotByGardenId(garden_id)));
+
+        return init_response;
+    }
+
+    /* Everything written or deleted after a revision of the gardener */
+    public DeltaResponse loadChanges(Long gardener_id, Long since) {
+
+        DeltaResponse delta_response = new DeltaResponse();
+
+        /* Read first, so that nothing committed after it can be missed */
+        delta_response.setRevision(revision_service.current(gardener_id));
+
+        delta_response.setGarden_list(garden_repo.findChangedSince(gardener_id, since));
+        delta_response.addCategoryPrimary(category_primary_repo.findChangedSince(gardener_id, since));
+        delta_response.addCategorySecondary(category_secondary_repo.findChangedSince(gardener_id, since));
+        delta_response.addVegetable(veggie_repo.findChangedSince(gardener_id, since));
+        delta_response.addPlot(plot_repo.findChangedSince(gardener_id, since));
+        delta_response.addPlant(plant_repo.findChangedSince(gardener_id, since));
+        delta_response.setDeleted_list(tombstone_repo.findByGardenerIdSince(gardener_id, since));
+
+        return delta_response;
+    }
+
+    /*
+     * The cursor is closed once every row has been read. An entity the
+     * persistence context already held as a reference (getReferenceById) comes
+     * back as that proxy, which is replaced by the entity for serialization
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> collect(Stream<T> stream) {
+        try (stream) {
+            return stream.map(entity -> (T) Hibernate.unproxy(entity)).toList();
+        }
+    }
+
+}
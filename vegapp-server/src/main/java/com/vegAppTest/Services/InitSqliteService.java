@@ -0,0 +1,402 @@
+package com.vegAppTest.Services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*   Entities   */
+import com.vegAppTest.Entities.CategoryPrimary;
+import com.vegAppTest.Entities.CategorySecondary;
+import com.vegAppTest.Entities.Garden;
+import com.vegAppTest.Entities.Plant;
+import com.vegAppTest.Entities.Plot;
+import com.vegAppTest.Entities.Veggie;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.CategoryPrimary_R;
+import com.vegAppTest.Repositories.CategorySecondary_R;
+import com.vegAppTest.Repositories.Garden_R;
+import com.vegAppTest.Repositories.Plant_R;
+import com.vegAppTest.Repositories.Plot_R;
+import com.vegAppTest.Repositories.Veggie_R;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/*
+ * Builds the SQLite database of the mobile app, already filled with the data
+ * of a gardener, so a first launch only has to download and open it.
+ * The files are kept in init.sqlite.cache-dir, one per gardener and revision:
+ * a file is reused until the gardener writes again.
+ * Init_C hands the file to Tomcat by name (sendfile), which opens it once the
+ * request returned : serving a file touches it, and a build only deletes the
+ * older files of the gardener not served for init.sqlite.delete-grace.
+ */
+@Service
+public class InitSqliteService {
+
+    /* A prebuilt file and the revision of the data it holds */
+    public static class Bootstrap {
+
+        private final Path file;
+        private final Long revision;
+
+        Bootstrap(Path file, Long revision) {
+            this.file = file;
+            this.revision = revision;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public Long getRevision() {
+            return revision;
+        }
+    }
+
+    /* Version of the schema below, read by sqflite as the database version */
+    private static final int SCHEMA_VERSION = 1;
+
+    /* Same tables as _onCreate in frontend/lib/controllers/database_helper.dart */
+    private static final List<String> SCHEMA = List.of(
+            """
+            CREATE TABLE garden (
+              id INTEGER PRIMARY KEY ,
+              name VARCHAR(255) UNIQUE
+            )""",
+            """
+            CREATE TABLE category_primary (
+              id INTEGER PRIMARY KEY ,
+              name VARCHAR(255) NOT NULL,
+              garden_id INTEGER NOT NULL,
+              FOREIGN KEY (garden_id) REFERENCES garden(id)
+            )""",
+            """
+            CREATE TABLE category_secondary (
+              id INTEGER PRIMARY KEY ,
+              name VARCHAR(255) NOT NULL,
+              color VARCHAR(50) NOT NULL,
+              garden_id INTEGER NOT NULL,
+              FOREIGN KEY (garden_id) REFERENCES garden(id)
+            )""",
+            """
+            CREATE TABLE vegetable (
+              id INTEGER PRIMARY KEY ,
+              name VARCHAR(255),
+              seed_availability INT,
+              seed_expiration INT,
+              harvest_start INT,
+              harvest_end INT,
+              plant_start VARCHAR(255),
+              plant_end VARCHAR(255),
+              note VARCHAR(255),
+              category_primary_id INTEGER REFERENCES category_primary(id),
+              category_secondary_id INTEGER REFERENCES category_secondary(id),
+              garden_id INTEGER REFERENCES garden(id)
+            )""",
+            """
+            CREATE TABLE plot (
+              id INTEGER PRIMARY KEY ,
+              name VARCHAR(255),
+              creation_date DATE,
+              in_calendar INT,
+              nb_of_lines VARCHAR(255),
+              orientation INT,
+              version INT,
+              note VARCHAR(255),
+              garden_id INT NOT NULL,
+              FOREIGN KEY (garden_id) REFERENCES garden(id)
+            )""",
+            """
+            CREATE TABLE planted (
+              id INTEGER PRIMARY KEY,
+              plot_id INT NOT NULL,
+              veggie_id INT NOT NULL,
+              vegetable_location VARCHAR(255)
+            )""",
+            """
+            CREATE TABLE calendar (
+              id INTEGER PRIMARY KEY ,
+              garden_id INT NOT NULL,
+              harvest_done INT,
+              note VARCHAR(255),
+              plant_done INT,
+              veggie_id INT NOT NULL
+            )""",
+            """
+            CREATE TABLE sync (
+              id INTEGER PRIMARY KEY ,
+              api_number INT,
+              api_url VARCHAR(255),
+              api_body VARCHAR(255),
+              api_type INT
+            )""");
+
+    @Autowired
+    Garden_R garden_repo;
+
+    @Autowired
+    CategoryPrimary_R category_primary_repo;
+
+    @Autowired
+    CategorySecondary_R category_secondary_repo;
+
+    @Autowired
+    Veggie_R veggie_repo;
+
+    @Autowired
+    Plot_R plot_repo;
+
+    @Autowired
+    Plant_R plant_repo;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    ObjectMapper object_mapper;
+
+    @Autowired
+    PlatformTransactionManager transaction_manager;
+
+    @PersistenceContext
+    EntityManager entity_manager;
+
+    @Value("${init.sqlite.cache-dir:${java.io.tmpdir}/vegapp-init-sqlite}")
+    String cache_dir;
+
+    @Value("${init.sqlite.delete-grace:PT1M}")
+    Duration delete_grace;
+
+    /* Prebuilt file of every garden of the gardener, built if the data changed since the last one */
+    public Bootstrap getGardener(Long gardener_id) {
+
+        Long revision = revision_service.current(gardener_id);
+        Path file = Paths.get(cache_dir, gardener_id + "-" + revision + ".sqlite");
+
+        if (!touch(file)) {
+            build(gardener_id, file);
+            deleteOlderFiles(gardener_id, file);
+        }
+        return new Bootstrap(file, revision);
+    }
+
+    /*
+     * Written to a temporary file first, so a concurrent request never serves a
+     * half written database (two concurrent builds only do the same work twice)
+     */
+    private void build(Long gardener_id, Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), gardener_id + "-", ".tmp");
+
+            try {
+                try (Connection sqlite = DriverManager.getConnection("jdbc:sqlite:" + temporary)) {
+                    fill(sqlite, gardener_id);
+                }
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not build the SQLite file of gardener " + gardener_id, e);
+        }
+    }
+
+    private void fill(Connection sqlite, Long gardener_id) throws SQLException {
+
+        try (Statement statement = sqlite.createStatement()) {
+            /* A throw-away file, nothing has to survive a crash while it is written */
+            statement.execute("PRAGMA journal_mode = OFF");
+            statement.execute("PRAGMA synchronous = OFF");
+            for (String table : SCHEMA) {
+                statement.execute(table);
+            }
+        }
+        sqlite.setAutoCommit(false);
+
+        /* The rows are read with the same snapshot queries as /init, inside one read-only transaction */
+        TransactionTemplate transaction = new TransactionTemplate(transaction_manager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try {
+                insertAll(sqlite, gardener_id);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        sqlite.commit();
+        sqlite.setAutoCommit(true);
+
+        try (Statement statement = sqlite.createStatement()) {
+            /* sqflite opens the file as an existing database of this version, without running _onCreate */
+            statement.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+        }
+    }
+
+    private void insertAll(Connection sqlite, Long gardener_id) throws SQLException {
+
+        try (PreparedStatement insert = sqlite.prepareStatement("INSERT INTO garden (id, name) VALUES (?, ?)")) {
+            for (Garden garden : garden_repo.findAllByGardenerId(gardener_id)) {
+                insert.setLong(1, garden.getId());
+                insert.setString(2, garden.getName());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        try (PreparedStatement insert = sqlite.prepareStatement(
+                "INSERT INTO category_primary (id, name, garden_id) VALUES (?, ?, ?)")) {
+            insertRows(insert, category_primary_repo.streamSnapshotByGardenerId(gardener_id),
+                    (CategoryPrimary category_primary) -> {
+                        insert.setLong(1, category_primary.getId());
+                        insert.setString(2, category_primary.getName());
+                        insert.setLong(3, category_primary.getGarden().getId());
+                    });
+        }
+
+        try (PreparedStatement insert = sqlite.prepareStatement(
+                "INSERT INTO category_secondary (id, name, color, garden_id) VALUES (?, ?, ?, ?)")) {
+            insertRows(insert, category_secondary_repo.streamSnapshotByGardenerId(gardener_id),
+                    (CategorySecondary category_secondary) -> {
+                        insert.setLong(1, category_secondary.getId());
+                        insert.setString(2, category_secondary.getName());
+                        insert.setString(3, category_secondary.getColor().name());
+                        insert.setLong(4, category_secondary.getGarden().getId());
+                    });
+        }
+
+        try (PreparedStatement insert = sqlite.prepareStatement(
+                "INSERT INTO vegetable (id, name, seed_availability, seed_expiration, harvest_start, harvest_end, "
+                        + "plant_start, plant_end, note, category_primary_id, category_secondary_id, garden_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            insertRows(insert, veggie_repo.streamSnapshotByGardenerId(gardener_id), (Veggie veggie) -> {
+                insert.setLong(1, veggie.getId());
+                insert.setString(2, veggie.getName());
+                insert.setInt(3, veggie.getSeed_availability());
+                insert.setInt(4, veggie.getSeed_expiration());
+                insert.setInt(5, veggie.getHarvest_start());
+                insert.setInt(6, veggie.getHarvest_end());
+                insert.setString(7, veggie.getPlant_start());
+                insert.setString(8, veggie.getPlant_end());
+                insert.setString(9, veggie.getNote());
+                insert.setLong(10, veggie.getCategory_primary().getId());
+                /* Same value as the JSON import of the app (init_controller.dart) */
+                insert.setLong(11, 0);
+                insert.setLong(12, veggie.getCategory_primary().getGarden().getId());
+            });
+        }
+
+        try (PreparedStatement insert = sqlite.prepareStatement(
+                "INSERT INTO plot (id, name, creation_date, in_calendar, nb_of_lines, orientation, version, note, "
+                        + "garden_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            insertRows(insert, plot_repo.streamSnapshotByGardenerId(gardener_id), (Plot plot) -> {
+                insert.setLong(1, plot.getId());
+                insert.setString(2, plot.getName());
+                /* Same text as in the /init JSON */
+                insert.setString(3, plot.getCreation_date() == null ? null
+                        : object_mapper.convertValue(plot.getCreation_date(), String.class));
+                insert.setInt(4, plot.getIn_calendar());
+                insert.setString(5, plot.getNb_of_lines());
+                insert.setInt(6, plot.getOrientation());
+                insert.setInt(7, plot.getVersion());
+                insert.setString(8, plot.getNote());
+                insert.setLong(9, plot.getGarden().getId());
+            });
+        }
+
+        try (PreparedStatement insert = sqlite.prepareStatement(
+                "INSERT INTO planted (id, plot_id, veggie_id, vegetable_location) VALUES (?, ?, ?, ?)")) {
+            insertRows(insert, plant_repo.streamSnapshotByGardenerId(gardener_id), (Plant plant) -> {
+                insert.setLong(1, plant.getId());
+                insert.setLong(2, plant.getPlot_id());
+                insert.setLong(3, plant.getVeggie_id());
+                insert.setString(4, plant.getVegetable_location());
+            });
+        }
+    }
+
+    private interface RowBinder<T> {
+        void bind(T row) throws SQLException;
+    }
+
+    private static final int BATCH_SIZE = 500;
+
+    /* Every row is detached once bound, as in InitStreamWriter */
+    private <T> void insertRows(PreparedStatement insert, Stream<T> rows, RowBinder<T> binder) throws SQLException {
+
+        int pending = 0;
+        try (rows) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                binder.bind(row);
+                insert.addBatch();
+                entity_manager.detach(row);
+
+                if (++pending == BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            insert.executeBatch();
+        }
+    }
+
+    /* Marks the file as being served, false if there is none */
+    private static boolean touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* The files served within the grace may not be opened by Tomcat yet, they go with a later build */
+    private void deleteOlderFiles(Long gardener_id, Path file) {
+
+        FileTime served_before = FileTime.fromMillis(System.currentTimeMillis() - delete_grace.toMillis());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(file.getParent(), gardener_id + "-*.sqlite")) {
+            for (Path older : files) {
+                if (!older.equals(file) && Files.getLastModifiedTime(older).compareTo(served_before) < 0) {
+                    Files.deleteIfExists(older);
+                }
+            }
+        } catch (IOException e) {
+            /* Only disk space is lost, they are deleted with the next build */
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.vegAppTest.Services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Garden;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.CategoryPrimary_R;
+import com.vegAppTest.Repositories.CategorySecondary_R;
+import com.vegAppTest.Repositories.Garden_R;
+import com.vegAppTest.Repositories.Plant_R;
+import com.vegAppTest.Repositories.Plot_R;
+import com.vegAppTest.Repositories.Veggie_R;
+import com.vegAppTest.Wrapper.InitResponse;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/*
+ * Writes the same body as InitResponse, in any of the payload formats, section
+ * by section, directly from the snapshot cursors. Every row is detached once
+ * written so neither the heap nor the persistence context grow with the
+ * history of the gardener.
+ */
+@Service
+public class InitStreamWriter {
+
+    @Autowired
+    Garden_R garden_repo;
+
+    @Autowired
+    CategoryPrimary_R category_primary_repo;
+
+    @Autowired
+    CategorySecondary_R category_secondary_repo;
+
+    @Autowired
+    Veggie_R veggie_repo;
+
+    @Autowired
+    Plot_R plot_repo;
+
+    @Autowired
+    Plant_R plant_repo;
+
+    @Autowired
+    PayloadFormatService payload_format_service;
+
+    @Autowired
+    PlatformTransactionManager transaction_manager;
+
+    @PersistenceContext
+    EntityManager entity_manager;
+
+    /* Write every garden of a gardener, or only one garden if garden_id is given */
+    public void write(OutputStream output, PayloadFormatService.Format format, Long gardener_id, Long garden_id)
+            throws IOException {
+
+        /* The response is written outside of the request thread, so the cursors need their own transaction */
+        TransactionTemplate transaction = new TransactionTemplate(transaction_manager);
+        transaction.setReadOnly(true);
+
+        try (JsonGenerator generator = payload_format_service.mapper(format).createGenerator(output)) {
+            transaction.executeWithoutResult(status -> {
+                try {
+                    writeSections(generator, gardener_id, garden_id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /* Same body as an empty InitResponse, used for the error responses */
+    public void writeEmpty(OutputStream output, PayloadFormatService.Format format) throws IOException {
+        payload_format_service.mapper(format).writeValue(output, new InitResponse());
+    }
+
+    private void writeSections(JsonGenerator generator, Long gardener_id, Long garden_id) throws IOException {
+
+        generator.writeStartObject();
+
+        generator.writeArrayFieldStart("garden_list");
+        if (garden_id == null) {
+            for (Garden garden : garden_repo.findAllByGardenerId(gardener_id)) {
+                generator.writeObject(garden);
+            }
+        }
+        generator.writeEndArray();
+
+        writeSection(generator, "category_primary_list",
+                garden_id == null ? category_primary_repo.streamSnapshotByGardenerId(gardener_id)
+                        : category_primary_repo.streamSnapshotByGardenId(garden_id),
+                category_primary -> category_primary.setGarden_id(category_primary.getGarden().getId()));
+
+        writeSection(generator, "category_secondary_list",
+                garden_id == null ? category_secondary_repo.streamSnapshotByGardenerId(gardener_id)
+                        : category_secondary_repo.streamSnapshotByGardenId(garden_id),
+                category_secondary -> category_secondary.setGarden_id(category_secondary.getGarden().getId()));
+
+        writeSection(generator, "veggie_list",
+                garden_id == null ? veggie_repo.streamSnapshotByGardenerId(gardener_id)
+                        : veggie_repo.streamSnapshotByGardenId(garden_id),
+                veggie -> {
+                    veggie.setCategory_primary_id(veggie.getCategory_primary().getId());
+                    veggie.setGarden_id(veggie.getCategory_primary().getGarden().getId());
+                });
+
+        writeSection(generator, "plot_list",
+                garden_id == null ? plot_repo.streamSnapshotByGardenerId(gardener_id)
+                        : plot_repo.streamSnapshotByGardenId(garden_id),
+                plot -> plot.setGarden_id(plot.getGarden().getId()));
+
+        writeSection(generator, "plant_list",
+                garden_id == null ? plant_repo.streamSnapshotByGardenerId(gardener_id)
+                        : plant_repo.streamSnapshotByGardenId(garden_id),
+                plant -> {
+                });
+
+        generator.writeEndObject();
+    }
+
+    private <T> void writeSection(JsonGenerator generator, String name, Stream<T> rows, Consumer<T> prepare)
+            throws IOException {
+
+        generator.writeArrayFieldStart(name);
+        try (rows) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                T row = iterator.next();
+                prepare.accept(row);
+                generator.writeObject(row);
+                entity_manager.detach(row);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.vegAppTest.Services;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Garden_R;
+
+/*
+ * Ids of the gardens and categories named in the URLs, per gardener :
+ * garden name -> garden id, and (garden id, category name) -> category id for
+ * the primary and secondary categories. The controllers then use references
+ * (getReferenceById) instead of querying the entities by name.
+ * - One entry per gardener, loaded with one query and stamped with the
+ *   revision of the gardener read before it
+ * - Every creation, rename or deletion of a garden or a category gives the
+ *   gardener a new revision, on this instance or another one : each lookup
+ *   reads the committed revision (RevisionService.current) and reloads the
+ *   entry when it moved, a name missing from a current entry is unknown
+ * - The controllers that change names also invalidate the entry, so that the
+ *   request that writes resolves its own change
+ * - Entries expire after names.cache.ttl and the least recently used ones are
+ *   evicted over names.cache.max-size
+ */
+@Service
+public class NameResolutionService {
+
+    /* Immutable once built */
+    private record Entry(Long revision, Map<String, Long> gardens, Map<Long, Map<String, Long>> primaries,
+            Map<Long, Map<String, Long>> secondaries) {
+    }
+
+    @Autowired
+    Garden_R garden_repo;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${names.cache.ttl:PT5M}")
+    Duration ttl;
+
+    @Value("${names.cache.max-size:10000}")
+    int max_size;
+
+    private BoundedCache<Long, Entry> names;
+
+    @PostConstruct
+    void createCache() {
+        names = new BoundedCache<>("names.cache", ttl, max_size, meter_registry);
+    }
+
+    /* Id of a garden of the gardener, null if it has none of that name */
+    public Long gardenId(Long gardener_id, String garden_name) {
+        return current(gardener_id).gardens().get(garden_name);
+    }
+
+    /* Id of a primary category of a garden of the gardener, null if unknown */
+    public Long primaryId(Long gardener_id, String garden_name, String category_name) {
+        return category(gardener_id, garden_name, category_name, true);
+    }
+
+    /* Id of a secondary category of a garden of the gardener, null if unknown */
+    public Long secondaryId(Long gardener_id, String garden_name, String category_name) {
+        return category(gardener_id, garden_name, category_name, false);
+    }
+
+    /* A garden or a category of that gardener was created, renamed or deleted */
+    public void invalidate(Long gardener_id) {
+        names.invalidateAfterTransaction(gardener_id);
+    }
+
+    private Long category(Long gardener_id, String garden_name, String category_name, boolean primary) {
+        return find(current(gardener_id), garden_name, category_name, primary);
+    }
+
+    /* Entry of the gardener at its committed revision */
+    private Entry current(Long gardener_id) {
+
+        Long revision = revision_service.current(gardener_id);
+        return names.get(gardener_id, entry -> Objects.equals(entry.revision(), revision),
+                key -> load(key, revision));
+    }
+
+    private static Long find(Entry entry, String garden_name, String category_name, boolean primary) {
+
+        Long garden_id = entry.gardens().get(garden_name);
+        if (garden_id == null) {
+            return null;
+        }
+        Map<String, Long> categories = (primary ? entry.primaries() : entry.secondaries()).get(garden_id);
+        return categories == null ? null : categories.get(category_name);
+    }
+
+    private Entry load(Long gardener_id, Long revision) {
+
+        Map<String, Long> gardens = new HashMap<>();
+        Map<Long, Map<String, Long>> primaries = new HashMap<>();
+        Map<Long, Map<String, Long>> secondaries = new HashMap<>();
+        /* (kind, id, garden id, name), kind is G for a garden, P and S for the categories */
+        List<Object[]> rows = garden_repo.findNamesByGardenerId(gardener_id);
+        for (Object[] row : rows) {
+            String kind = row[0].toString();
+            Long id = ((Number) row[1]).longValue();
+            Long garden_id = ((Number) row[2]).longValue();
+            String name = (String) row[3];
+            switch (kind) {
+                case "G":
+                    gardens.put(name, id);
+                    break;
+                case "P":
+                    primaries.computeIfAbsent(garden_id, key -> new HashMap<>()).put(name, id);
+                    break;
+                default:
+                    secondaries.computeIfAbsent(garden_id, key -> new HashMap<>()).put(name, id);
+            }
+        }
+        return new Entry(revision, gardens, primaries, secondaries);
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.vegAppTest.Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Binary Jackson formats offered next to JSON.
+ * The endpoints returning objects are negotiated by Spring MVC directly, this
+ * service is for the ones writing bytes themselves (cached /init, streamed
+ * /init and the stored /sync responses). Every mapper is a copy of the MVC
+ * one, so the field names and settings are the same in every format.
+ */
+@Service
+public class PayloadFormatService {
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(MediaType.APPLICATION_CBOR),
+        SMILE(new MediaType("application", "x-jackson-smile"));
+
+        private final MediaType media_type;
+
+        Format(MediaType media_type) {
+            this.media_type = media_type;
+        }
+
+        public MediaType getMedia_type() {
+            return media_type;
+        }
+    }
+
+    @Autowired
+    ObjectMapper object_mapper;
+
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+
+    @PostConstruct
+    void createMappers() {
+        mappers.put(Format.JSON, object_mapper);
+        mappers.put(Format.CBOR, object_mapper.copyWith(new CBORFactory()));
+        mappers.put(Format.SMILE, object_mapper.copyWith(new SmileFactory()));
+    }
+
+    public ObjectMapper mapper(Format format) {
+        return mappers.get(format);
+    }
+
+    /*
+     * JSON unless the Accept header explicitly asks for a binary format : the
+     * accepted types are taken by quality, the specific ones before the
+     * wildcards, and a wildcard preferred to the binary formats gives JSON
+     */
+    public Format negotiate(String accept) {
+
+        if (accept == null || accept.isBlank()) {
+            return Format.JSON;
+        }
+
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return Format.JSON;
+        }
+        /* Stable : the order of the header is kept between equal types */
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+                .thenComparing(media_type -> media_type.isWildcardType() || media_type.isWildcardSubtype()));
+
+        for (MediaType media_type : accepted) {
+            if (media_type.getQualityValue() == 0) {
+                break;
+            }
+            for (Format format : Format.values()) {
+                if (media_type.equalsTypeAndSubtype(format.getMedia_type())) {
+                    return format;
+                }
+            }
+            if (media_type.includes(MediaType.APPLICATION_JSON)) {
+                return Format.JSON;
+            }
+        }
+        return Format.JSON;
+    }
+
+    /*
+     * Whether the Accept-Encoding header accepts gzip : the quality of gzip (or
+     * x-gzip) when it is listed, else the one of *, must be above 0
+     */
+    public static boolean acceptsGzip(String accept_encoding) {
+
+        if (accept_encoding == null || accept_encoding.isBlank()) {
+            return false;
+        }
+
+        Double gzip = null;
+        Double wildcard = null;
+        for (String coding : accept_encoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parameters);
+
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        Double quality = gzip != null ? gzip : wildcard;
+        return quality != null && quality > 0;
+    }
+
+    /* q parameter of a coding, 1 when there is none and 0 when it is not a number */
+    private static double quality(String[] parameters) {
+
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /* Re-encodes a JSON text, null if it is not valid JSON */
+    public byte[] fromJson(String json, Format format) {
+        try {
+            JsonNode tree = object_mapper.readTree(json);
+            return mapper(format).writeValueAsBytes(tree);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.vegAppTest.Services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Tombstone;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Plant_R;
+
+import jakarta.transaction.Transactional;
+
+/*
+ * Whole layout of a plot version, for PUT /plants : the plants of the plot are
+ * compared with the layout by location, then
+ * - a location that is not in the layout anymore is deleted (with its tombstone)
+ * - a location whose vegetable changed is updated, and keeps its plant id
+ * - a new location is inserted
+ * - a location with several plants keeps one, the one of the vegetable of the
+ *   layout if any, and the others are deleted (with their tombstones)
+ * Each kind of change is one JDBC batch, all of them under one revision; a
+ * layout that is already the one of the plot writes nothing.
+ */
+@Service
+@Transactional
+public class PlantLayoutService {
+
+    /* Number of plants the layout deleted, updated and inserted */
+    public record Changes(int deleted, int updated, int inserted) {
+
+        public boolean isEmpty() {
+            return deleted == 0 && updated == 0 && inserted == 0;
+        }
+    }
+
+    @Autowired
+    Plant_R plant_repo;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    JdbcTemplate jdbc_template;
+
+    /* layout is location -> veggie id, the plot belongs to that garden of that gardener */
+    public Changes apply(Long gardener_id, Long garden_id, Long plot_id, Map<String, Long> layout) {
+
+        /* (id, location, veggie id), one per location */
+        Map<String, Object[]> existing = new HashMap<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Object[] row : plant_repo.findLayoutByPlotId(plot_id)) {
+            String location = (String) row[1];
+            Object[] kept = existing.get(location);
+            if (kept == null) {
+                existing.put(location, row);
+            } else if (!isPlanted(kept, layout.get(location)) && isPlanted(row, layout.get(location))) {
+                existing.put(location, row);
+                deleted.add(((Number) kept[0]).longValue());
+            } else {
+                deleted.add(((Number) row[0]).longValue());
+            }
+        }
+
+        List<Object[]> updated = new ArrayList<>();
+        List<Object[]> inserted = new ArrayList<>();
+        for (Object[] row : existing.values()) {
+            if (!layout.containsKey((String) row[1])) {
+                deleted.add(((Number) row[0]).longValue());
+            }
+        }
+        layout.forEach((location, veggie_id) -> {
+            Object[] row = existing.get(location);
+            if (row == null) {
+                inserted.add(new Object[] { plot_id, veggie_id, location });
+            } else if (!isPlanted(row, veggie_id)) {
+                updated.add(new Object[] { veggie_id, ((Number) row[0]).longValue() });
+            }
+        });
+
+        Changes changes = new Changes(deleted.size(), updated.size(), inserted.size());
+        if (changes.isEmpty()) {
+            return changes;
+        }
+
+        Long revision = revision_service.next(gardener_id, garden_id);
+        if (!deleted.isEmpty()) {
+            jdbc_template.batchUpdate("DELETE FROM plant WHERE id = ?",
+                    deleted.stream().map(id -> new Object[] { id }).toList());
+            revision_service.recordDeletions(gardener_id, Tombstone.Type.PLANT, deleted, revision);
+        }
+        if (!updated.isEmpty()) {
+            jdbc_template.batchUpdate("UPDATE plant SET veggie_id = ?, revision = ? WHERE id = ?",
+                    updated.stream().map(row -> new Object[] { row[0], revision, row[1] }).toList());
+        }
+        if (!inserted.isEmpty()) {
+            jdbc_template.batchUpdate(
+                    "INSERT INTO plant (plot_id, veggie_id, vegetable_location, revision) VALUES (?, ?, ?, ?)",
+                    inserted.stream().map(row -> new Object[] { row[0], row[1], row[2], revision }).toList());
+        }
+        return changes;
+    }
+
+    /* The plant of that row is of that vegetable */
+    private static boolean isPlanted(Object[] row, Long veggie_id) {
+        return row[2] != null && veggie_id != null && ((Number) row[2]).longValue() == veggie_id;
+    }
+
+}
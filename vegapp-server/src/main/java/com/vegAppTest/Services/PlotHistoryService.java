@@ -0,0 +1,97 @@
+package com.vegAppTest.Services;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Plot_R;
+import com.vegAppTest.Wrapper.PlotHistory;
+
+/*
+ * History tree of a garden (year -> plot name -> versions) for /plot_history.
+ * The past years are kept per garden and only the current year is read again :
+ * - one query per call (Plot_R.findHistorySince) : the rows of the current
+ *   year, and the number of plots of the past years with the sum of their
+ *   revisions
+ * - a past year still changes when a plot is created with an older date,
+ *   renamed or deleted, on this instance or another one; each of these changes
+ *   the number of plots or the sum (a write gives a greater revision), and the
+ *   whole tree is then read again (Plot_R.findHistory), no invalidation needed
+ * - the least recently used gardens are evicted over plot.history.max-size
+ */
+@Service
+public class PlotHistoryService {
+
+    /* Immutable once built : the past years, until current_year, and what they were built from */
+    private record Entry(int current_year, long plots, long revisions, List<PlotHistory> past_years) {
+    }
+
+    @Autowired
+    Plot_R plot_repo;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${plot.history.max-size:10000}")
+    int max_size;
+
+    private BoundedCache<Long, Entry> histories;
+
+    @PostConstruct
+    void createCache() {
+        histories = new BoundedCache<>("plot.history", null, max_size, meter_registry);
+    }
+
+    /* Years of the garden with plots, from the oldest, each with its plots by name */
+    public List<PlotHistory> getHistory(Long garden_id) {
+
+        int current_year = LocalDate.now().getYear();
+        /* Rows of the current year, read by the validation of the entry or by its load */
+        List<List<Object[]>> current_rows = new ArrayList<>(1);
+        Entry entry = histories.get(garden_id, cached -> isCurrent(cached, garden_id, current_year, current_rows),
+                key -> load(key, current_year, current_rows));
+
+        List<PlotHistory> years = new ArrayList<>(entry.past_years());
+        years.addAll(PlotHistory.fromRows(current_rows.get(0)));
+        return years;
+    }
+
+    private boolean isCurrent(Entry entry, Long garden_id, int current_year, List<List<Object[]>> current_rows) {
+
+        if (entry.current_year() != current_year) {
+            return false;
+        }
+        /* The rows of the current year, then the row of the past years */
+        List<Object[]> rows = plot_repo.findHistorySince(garden_id, LocalDate.of(current_year, 1, 1));
+        Object[] past = rows.get(rows.size() - 1);
+        current_rows.add(rows);
+        return ((Number) past[3]).longValue() == entry.plots() && ((Number) past[4]).longValue() == entry.revisions();
+    }
+
+    private Entry load(Long garden_id, int current_year, List<List<Object[]>> current_rows) {
+
+        List<Object[]> rows = plot_repo.findHistory(garden_id);
+
+        /* Ordered by year : the past years are the rows before the first of the current year */
+        int past_rows = 0;
+        long plots = 0;
+        long revisions = 0;
+        while (past_rows < rows.size() && ((Number) rows.get(past_rows)[0]).intValue() < current_year) {
+            plots += ((Number) rows.get(past_rows)[3]).longValue();
+            revisions += ((Number) rows.get(past_rows)[4]).longValue();
+            past_rows++;
+        }
+        current_rows.clear();
+        current_rows.add(rows.subList(past_rows, rows.size()));
+        return new Entry(current_year, plots, revisions, List.copyOf(PlotHistory.fromRows(rows.subList(0, past_rows))));
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.vegAppTest.Services;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Tombstone;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.GardenRevision_R;
+import com.vegAppTest.Repositories.Gardener_R;
+import com.vegAppTest.Repositories.Tombstone_R;
+
+import jakarta.transaction.Transactional;
+
+/*
+ * Per-gardener revision counter used by /init?since= and the ETags
+ * - Every write takes the next revision and stamps it on the rows it saves
+ * - The garden written into keeps that revision as its own (garden_revision)
+ * - Every delete records a tombstone with that revision
+ * The counter row is locked until the write commits, so the writes of a
+ * gardener are committed in revision order.
+ */
+@Service
+@Transactional
+public class RevisionService {
+
+    @Autowired
+    Gardener_R gardener_repo;
+
+    @Autowired
+    Tombstone_R tombstone_repo;
+
+    @Autowired
+    GardenRevision_R garden_revision_repo;
+
+    @Autowired
+    ApplicationEventPublisher event_publisher;
+
+    @Autowired
+    JdbcTemplate jdbc_template;
+
+    /* Revision to stamp on the rows written by the current request */
+    public Long next(Long gardener_id) {
+        Long revision = gardener_repo.incrementRevision(gardener_id);
+
+        /* Lets the caches of the gardener drop their entries once the write is committed */
+        event_publisher.publishEvent(new GardenerChangedEvent(gardener_id, revision));
+
+        return revision;
+    }
+
+    /* Same, for a write into a garden */
+    public Long next(Long gardener_id, Long garden_id) {
+        Long revision = next(gardener_id);
+        stampGarden(gardener_id, garden_id, revision);
+        return revision;
+    }
+
+    /* For a garden whose id is only known once saved */
+    public void stampGarden(Long gardener_id, Long garden_id, Long revision) {
+        garden_revision_repo.upsert(gardener_id, garden_id, revision);
+        event_publisher.publishEvent(new GardenChangedEvent(gardener_id, garden_id, revision));
+    }
+
+    public void forgetGarden(Long gardener_id, Long garden_id) {
+        garden_revision_repo.deleteByGardenId(garden_id);
+        event_publisher.publishEvent(new GardenChangedEvent(gardener_id, garden_id, null));
+    }
+
+    /* Last committed revision, to be read before the data it describes */
+    public Long current(Long gardener_id) {
+        return gardener_repo.findRevisionById(gardener_id);
+    }
+
+    /* Last committed revision of a garden, null if it does not belong to the gardener */
+    public Long currentGarden(Long gardener_id, Long garden_id) {
+        Long revision = garden_revision_repo.findRevision(gardener_id, garden_id);
+        if (revision == null && garden_revision_repo.insertCurrent(gardener_id, garden_id) > 0) {
+            revision = garden_revision_repo.findRevision(gardener_id, garden_id);
+        }
+        return revision;
+    }
+
+    public void recordDeletion(Long gardener_id, Tombstone.Type entity_type, Long entity_id, Long revision) {
+        tombstone_repo.save(new Tombstone(gardener_id, entity_type, entity_id, revision));
+    }
+
+    /* Same for many deleted objects, as one JDBC batch */
+    public void recordDeletions(Long gardener_id, Tombstone.Type entity_type, List<Long> entity_ids, Long revision) {
+        jdbc_template.batchUpdate(
+                "INSERT INTO tombstone (gardener_id, entity_type, entity_id, revision) VALUES (?, ?, ?, ?)",
+                entity_ids.stream().map(entity_id -> new Object[] { gardener_id, entity_type.name(), entity_id, revision })
+                        .toList());
+    }
+
+}
@@ -0,0 +1,249 @@
+package com.vegAppTest.Services;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.vegAppTest.Wrapper.RequestData;
+
+/*
+ * Folds the redundant operations of a sync batch before they are applied :
+ * - create + update -> create with the updated fields
+ * - update + update -> a single update, from the first name to the last one
+ * - update + delete -> delete
+ * - create ... delete -> nothing
+ *
+ * Only the veggies are folded, the only objects whose operations are fully
+ * described by their url and body (the categories and plots are renamed or
+ * deleted in ways that depend on what else is in the DB). Two operations are
+ * folded only when nothing between them may depend on the veggie : any other
+ * kind of operation, or an operation on another veggie of the same garden,
+ * prevents it.
+ */
+@Service
+public class SyncCoalescer {
+
+    /* Fields of the body copied by PUT /vegetable, everything else comes from the url */
+    private static final List<String> UPDATED_FIELDS = List.of("name", "seed_availability", "seed_expiration",
+            "harvest_start", "harvest_end", "plant_start", "plant_end", "note");
+
+    /* An operation to apply, and the api_numbers of the batch whose response is its response */
+    public static class Operation {
+
+        private RequestData request_data;
+        private final List<Long> api_numbers = new ArrayList<>();
+
+        Operation(RequestData request_data, Long api_number) {
+            this.request_data = request_data;
+            this.api_numbers.add(api_number);
+        }
+
+        public RequestData getRequest_data() {
+            return request_data;
+        }
+
+        public List<Long> getApi_numbers() {
+            return api_numbers;
+        }
+    }
+
+    /* The operations to apply in order, the api_numbers cancelled out have a null response */
+    public record Plan(List<Operation> operations, List<Long> cancelled) {
+    }
+
+    private enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    /* A veggie is identified by its garden, categories and name */
+    private record Key(String garden_name, String category_primary_name, String category_secondary_name,
+            String veggie_name) {
+    }
+
+    /* An operation on a veggie, from (old) to (new) */
+    private record VeggieOperation(Type type, Key old_key, Key new_key, JsonNode body) {
+    }
+
+    /* Folded operation, with what it does now */
+    private static class Pending {
+        Operation operation;
+        VeggieOperation veggie_operation;
+    }
+
+    public Plan coalesce(List<RequestData> batch) {
+
+        List<Operation> operations = new ArrayList<>();
+        List<Long> cancelled = new ArrayList<>();
+        /* Last veggie operation of each garden, if nothing may depend on it since */
+        Map<String, Pending> pending = new HashMap<>();
+
+        for (RequestData request_data : batch) {
+
+            VeggieOperation veggie_operation = parse(request_data);
+            if (veggie_operation == null) {
+                /* Anything else may read or write any veggie */
+                pending.clear();
+                operations.add(new Operation(request_data, request_data.api_number));
+                continue;
+            }
+
+            String garden_name = veggie_operation.old_key().garden_name();
+            Pending previous = pending.get(garden_name);
+
+            if (previous != null && previous.veggie_operation.type() != Type.DELETE
+                    && veggie_operation.type() != Type.CREATE
+                    && previous.veggie_operation.new_key().equals(veggie_operation.old_key())) {
+
+                if (fold(previous, veggie_operation, request_data.api_number)) {
+                    continue;
+                }
+                /* create ... delete, neither is applied */
+                operations.remove(previous.operation);
+                cancelled.addAll(previous.operation.getApi_numbers());
+                cancelled.add(request_data.api_number);
+                pending.remove(garden_name);
+                continue;
+            }
+
+            Pending current = new Pending();
+            current.operation = new Operation(request_data, request_data.api_number);
+            current.veggie_operation = veggie_operation;
+            operations.add(current.operation);
+            pending.put(garden_name, current);
+        }
+
+        cancelled.sort(null);
+        return new Plan(operations, cancelled);
+    }
+
+    /* Folds next into previous, false if both cancel out */
+    private boolean fold(Pending previous, VeggieOperation next, Long api_number) {
+
+        VeggieOperation folded;
+        VeggieOperation first = previous.veggie_operation;
+
+        if (next.type() == Type.DELETE) {
+            if (first.type() == Type.CREATE) {
+                return false;
+            }
+            folded = new VeggieOperation(Type.DELETE, first.old_key(), first.old_key(), null);
+        } else if (first.type() == Type.CREATE) {
+            ObjectNode body = first.body().deepCopy();
+            for (String field : UPDATED_FIELDS) {
+                if (next.body().has(field)) {
+                    body.set(field, next.body().get(field));
+                }
+            }
+            folded = new VeggieOperation(Type.CREATE, next.new_key(), next.new_key(), body);
+        } else {
+            folded = new VeggieOperation(Type.UPDATE, first.old_key(), next.new_key(), next.body());
+        }
+
+        previous.operation.request_data = toRequestData(folded);
+        previous.operation.api_numbers.add(api_number);
+        previous.veggie_operation = folded;
+        return true;
+    }
+
+    /* null if it is not a create, update or delete of a veggie */
+    private static VeggieOperation parse(RequestData request_data) {
+
+        if (request_data.url == null || request_data.request_type == null) {
+            return null;
+        }
+        String path;
+        try {
+            path = URI.create(request_data.url).getRawPath();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (path == null || !path.startsWith("/vegetable/")) {
+            return null;
+        }
+        String[] segments = path.substring("/vegetable/".length()).split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = UriUtils.decode(segments[i], StandardCharsets.UTF_8);
+        }
+        String body_name = request_data.body != null && request_data.body.path("name").isTextual()
+                ? request_data.body.get("name").asText()
+                : null;
+
+        switch (request_data.request_type) {
+            case "post":
+                /* /vegetable/{category_primary_name}/{garden_name}/{category_secondary_name} */
+                if (segments.length != 3 || body_name == null || !request_data.body.isObject()) {
+                    return null;
+                }
+                Key created = new Key(segments[1], segments[0], segments[2], body_name);
+                return new VeggieOperation(Type.CREATE, created, created, request_data.body);
+            case "put":
+                /* /vegetable/{garden_name}/{cp_new}/{cs_new}/{veggie_name}/{cp_old}/{cs_old} */
+                if (segments.length != 6 || body_name == null || !request_data.body.isObject()) {
+                    return null;
+                }
+                return new VeggieOperation(Type.UPDATE, new Key(segments[0], segments[4], segments[5], segments[3]),
+                        new Key(segments[0], segments[1], segments[2], body_name), request_data.body);
+            case "delete":
+                /* /vegetable/{veggie_name}/{category_primary_name}/{garden_name}/{category_secondary_name} */
+                if (segments.length != 4) {
+                    return null;
+                }
+                Key deleted = new Key(segments[2], segments[1], segments[3], segments[0]);
+                return new VeggieOperation(Type.DELETE, deleted, deleted, null);
+            default:
+                return null;
+        }
+    }
+
+    private static RequestData toRequestData(VeggieOperation veggie_operation) {
+
+        RequestData request_data = new RequestData();
+
+        switch (veggie_operation.type()) {
+            case CREATE:
+                Key created = veggie_operation.new_key();
+                request_data.request_type = "post";
+                request_data.url = path(created.category_primary_name(), created.garden_name(),
+                        created.category_secondary_name());
+                request_data.body = veggie_operation.body();
+                break;
+            case UPDATE:
+                Key old_key = veggie_operation.old_key();
+                Key new_key = veggie_operation.new_key();
+                request_data.request_type = "put";
+                request_data.url = path(old_key.garden_name(), new_key.category_primary_name(),
+                        new_key.category_secondary_name(), old_key.veggie_name(), old_key.category_primary_name(),
+                        old_key.category_secondary_name());
+                request_data.body = veggie_operation.body();
+                break;
+            case DELETE:
+                Key deleted = veggie_operation.old_key();
+                request_data.request_type = "delete";
+                request_data.url = path(deleted.veggie_name(), deleted.category_primary_name(),
+                        deleted.garden_name(), deleted.category_secondary_name());
+                break;
+        }
+        return request_data;
+    }
+
+    private static String path(String... segments) {
+
+        StringBuilder path = new StringBuilder("/vegetable");
+        for (String segment : segments) {
+            path.append('/').append(UriUtils.encodePathSegment(segment, StandardCharsets.UTF_8));
+        }
+        return path.toString();
+    }
+
+}
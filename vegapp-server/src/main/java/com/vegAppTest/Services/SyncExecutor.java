@@ -0,0 +1,123 @@
+package com.vegAppTest.Services;
+
+import java.net.URI;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*   Controllers   */
+import com.vegAppTest.Controllers.Sync_C;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Replays a queued operation of /sync on the controller it targets, in the
+ * thread of the /sync request. The operation goes through the same handler
+ * mapping, argument resolution and message conversion as a real request, but
+ * not through the filter chain : the gardener is already authenticated by
+ * the /sync request and its principal is used as is.
+ */
+@Service
+public class SyncExecutor {
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    RequestMappingHandlerMapping handler_mapping;
+
+    @Autowired
+    RequestMappingHandlerAdapter handler_adapter;
+
+    @Autowired
+    ObjectMapper object_mapper;
+
+    /*
+     * Only the path and query of the url are used. Throws if the operation
+     * cannot be applied or its response is an error, as the loopback call did.
+     */
+    public ResponseEntity<String> execute(HttpServletRequest request, HttpServletResponse response, HttpMethod method,
+            String url, JsonNode body, String token) {
+
+        URI uri = URI.create(url);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+
+        byte[] content;
+        try {
+            content = body == null ? new byte[0] : object_mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid body", e);
+        }
+
+        SyncRequest sync_request = new SyncRequest(request, method.name(), path, uri.getRawQuery(), content,
+                SecurityContextHolder.getContext().getAuthentication());
+        sync_request.setHeader(HttpHeaders.AUTHORIZATION, token);
+        sync_request.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+        if (body != null) {
+            sync_request.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        }
+        SyncResponse sync_response = new SyncResponse(response);
+
+        RequestAttributes previous_attributes = RequestContextHolder.getRequestAttributes();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(sync_request, sync_response));
+        try {
+            ServletRequestPathUtils.parseAndCache(sync_request);
+            HandlerExecutionChain chain = handler_mapping.getHandler(sync_request);
+
+            if (chain == null || !(chain.getHandler() instanceof HandlerMethod handler_method)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No handler for " + method + " " + path);
+            }
+            /* A queued /sync would recurse into the sync of the gardener */
+            if (handler_method.getBeanType() == Sync_C.class) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "/sync cannot be queued");
+            }
+
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                if (!interceptor.preHandle(sync_request, sync_response, handler_method)) {
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+                }
+            }
+            handler_adapter.handle(sync_request, sync_response, handler_method);
+            for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+                interceptor.postHandle(sync_request, sync_response, handler_method, null);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Sync of " + method + " " + path + " failed", e);
+        } finally {
+            RequestContextHolder.setRequestAttributes(previous_attributes);
+        }
+
+        if (sync_response.getStatus() >= 400) {
+            throw new ResponseStatusException(HttpStatus.valueOf(sync_response.getStatus()),
+                    sync_response.getBodyAsString());
+        }
+
+        /* An empty body is a null one, as for the loopback call */
+        String response_body = sync_response.getBody().length == 0 ? null : sync_response.getBodyAsString();
+        return new ResponseEntity<>(response_body, sync_response.getHttpHeaders(),
+                HttpStatus.valueOf(sync_response.getStatus()));
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.vegAppTest.Services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Sync;
+import com.vegAppTest.Entities.SyncJournal;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.SyncJournal_R;
+
+/*
+ * Append-only journal of the operations applied by the syncs, with their
+ * gzipped replies for the lost-response retries.
+ *
+ * The reaper removes the entries older than sync.journal.ttl (the syncs
+ * themselves are reaped by SyncService).
+ *
+ * Metrics of the sync sessions ongoing on this instance, without tags (the
+ * gardeners and devices are neither exposed nor unbounded) :
+ * - sync.session.operations : operations applied, for the throughput
+ * - sync.session.active : sessions that applied an operation and did not end
+ * - sync.session.lag : longest time since the last operation of one of them
+ */
+@Service
+public class SyncJournalService {
+
+    /* Length of the path column */
+    private static final int MAX_PATH = 1024;
+
+    @Autowired
+    SyncJournal_R sync_journal_repo;
+
+    @Autowired
+    RevisionService revision_service;
+
+    @Autowired
+    MeterRegistry meter_registry;
+
+    @Value("${sync.journal.ttl:P7D}")
+    Duration journal_ttl;
+
+    /* Time of the last operation applied, per ongoing sync session */
+    private final ConcurrentHashMap<Long, Long> last_applied = new ConcurrentHashMap<>();
+
+    private final AtomicLong operations = new AtomicLong();
+
+    private DistributionSummary response_bytes;
+
+    @PostConstruct
+    void registerMetrics() {
+        response_bytes = DistributionSummary.builder("sync.journal.response").baseUnit("bytes")
+                .register(meter_registry);
+        FunctionCounter.builder("sync.session.operations", operations, AtomicLong::get).register(meter_registry);
+        Gauge.builder("sync.session.active", last_applied, map -> map.size()).register(meter_registry);
+        Gauge.builder("sync.session.lag", last_applied, SyncJournalService::longestLag).baseUnit("seconds")
+                .register(meter_registry);
+    }
+
+    /*
+     * Appends the entry of an operation, in the transaction that applies it.
+     * status is null for an operation folded into another one.
+     */
+    public void record(Sync sync_db, long api_number, String request_type, String url, Integer status,
+            String reply) {
+
+        SyncJournal entry = new SyncJournal();
+        entry.setSync_id(sync_db.getId());
+        entry.setGardener_id(sync_db.getGardener_id());
+        entry.setApi_number(api_number);
+        entry.setRevision(revision_service.current(sync_db.getGardener_id()));
+        entry.setRequest_type(request_type);
+        entry.setPath(path(url));
+        entry.setStatus(status);
+        entry.setApplied_at(new Date());
+
+        /* Short replies are kept as is, gzip would make them longer */
+        byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+        byte[] gzipped = gzip(bytes);
+        byte[] compressed = gzipped.length < bytes.length ? gzipped : bytes;
+        entry.setResponse(compressed);
+        entry.setResponse_size(bytes.length);
+        sync_journal_repo.save(entry);
+
+        Runnable count = () -> {
+            operations.incrementAndGet();
+            last_applied.put(sync_db.getId(), System.currentTimeMillis());
+            response_bytes.record(compressed.length);
+        };
+        /* Only what is committed is counted */
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count.run();
+                }
+            });
+        } else {
+            count.run();
+        }
+    }
+
+    /* Reply of an operation of a sync session, null if it is not in the journal */
+    public String findReply(Long sync_id, long api_number) {
+
+        SyncJournal entry = sync_journal_repo.findEntry(sync_id, api_number);
+        if (entry == null || entry.getResponse() == null) {
+            return null;
+        }
+        return new String(gunzip(entry.getResponse()), StandardCharsets.UTF_8);
+    }
+
+    /* The sync session is over, its entries stay until the TTL */
+    public void endSession(Long sync_id) {
+        last_applied.remove(sync_id);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.reaper.interval:PT1H}", initialDelayString = "${sync.reaper.interval:PT1H}")
+    public void reap() {
+        sync_journal_repo.deleteAppliedBefore(new Date(System.currentTimeMillis() - journal_ttl.toMillis()));
+    }
+
+    /* In seconds, 0 without ongoing session */
+    private static double longestLag(ConcurrentHashMap<Long, Long> last_applied) {
+        long now = System.currentTimeMillis();
+        return last_applied.values().stream().mapToLong(time -> now - time).max().orElse(0) / 1000.0;
+    }
+
+    private static String path(String url) {
+        try {
+            URI uri = URI.create(url);
+            String path = uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+            return path.length() > MAX_PATH ? path.substring(0, MAX_PATH) : path;
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        try {
+            ByteArrayOutputStream gzip = new ByteArrayOutputStream(bytes.length / 4 + 64);
+            try (GZIPOutputStream output = new GZIPOutputStream(gzip)) {
+                output.write(bytes);
+            }
+            return gzip.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gunzip(byte[] bytes) {
+        /* A JSON text never starts with the gzip magic number */
+        if (bytes.length < 2 || bytes[0] != (byte) 0x1f || bytes[1] != (byte) 0x8b) {
+            return bytes;
+        }
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,408 @@
+package com.vegAppTest.Services;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Sync;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Sync_R;
+
+import com.vegAppTest.Wrapper.RequestData;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Replay of the operations queued by a client while offline.
+ *
+ * Retries of the last sync.window.size operations are answered from the
+ * journal (see SyncJournalService), so a client can send up to that many
+ * PUT /sync at once without waiting for the previous responses.
+ *
+ * A gardener has one sync session per device (X-Device-Id), each with its own
+ * api_number sequence and window. The operations of a session are applied one
+ * at a time and in api_number order : a request arriving ahead of its turn
+ * waits (at most sync.window.wait-ms) until the previous api_number is applied.
+ * The sessions of a gardener do not wait for each other; their writes are
+ * ordered by the revision of the gardener (see RevisionService), recorded in
+ * the journal.
+ *
+ * Applying takes a transaction-level Postgres advisory lock on the session,
+ * so the order also holds across instances of the server. The monitor per
+ * session only saves the requests of one instance from contending on the
+ * lock; a request waiting for an operation applied by another instance sees
+ * it at its next poll (sync.window.poll-ms).
+ *
+ * The reaper removes the syncs without activity for sync.session.ttl (clients
+ * that crashed or gave up), and forgets the sessions ended by another instance.
+ */
+@Service
+public class SyncService {
+
+    @Autowired
+    Sync_R sync_repo;
+
+    @Autowired
+    SyncJournalService sync_journal_service;
+
+    @Autowired
+    SyncExecutor sync_executor;
+
+    @Autowired
+    SyncCoalescer sync_coalescer;
+
+    @Autowired
+    ObjectMapper object_mapper;
+
+    @Autowired
+    PlatformTransactionManager transaction_manager;
+
+    @PersistenceContext
+    EntityManager entity_manager;
+
+    @Value("${sync.window.size:16}")
+    int window_size;
+
+    @Value("${sync.window.wait-ms:30000}")
+    long wait_ms;
+
+    @Value("${sync.window.poll-ms:100}")
+    long poll_ms;
+
+    @Value("${sync.session.ttl:P1D}")
+    Duration session_ttl;
+
+    /* Longest X-Device-Id, length of the device_id column */
+    private static final int MAX_DEVICE_ID = 64;
+
+    /* One monitor per sync session, the operations of a session are applied while holding it */
+    private final ConcurrentHashMap<Long, Object> locks = new ConcurrentHashMap<>();
+
+    /* Device of a X-Device-Id header, empty when absent, null if it is too long */
+    public static String device(String device_id) {
+
+        if (device_id == null) {
+            return "";
+        }
+        device_id = device_id.trim();
+        return device_id.length() > MAX_DEVICE_ID ? null : device_id;
+    }
+
+    /* HTTP method of a RequestData.request_type, null if it is not handled */
+    public static HttpMethod method(String request_type) {
+
+        if (request_type == null) {
+            return null;
+        }
+        switch (request_type) {
+            case "get":
+                return HttpMethod.GET;
+            case "post":
+                return HttpMethod.POST;
+            case "put":
+                return HttpMethod.PUT;
+            case "delete":
+                return HttpMethod.DELETE;
+            default:
+                return null;
+        }
+    }
+
+    /*
+     * Rule of PUT /sync, for an operation n :
+     * - If n is applied already and still in the window, its stored response is
+     * sent again (the response was lost)
+     * - If n is the api_number of the DB + 1, it is applied
+     * - If n is further ahead but within the window, it waits for its turn
+     * - Any other case is an error
+     */
+    public ResponseEntity<String> apply(Long gardener_id, String device_id, RequestData request_data, String token,
+            HttpServletRequest request, HttpServletResponse response) {
+
+        if (request_data.api_number == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Missing api_number");
+        }
+        HttpMethod method = method(request_data.request_type);
+        if (method == null) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Unhandled type of HTTP method :" + request_data.request_type);
+        }
+        long api_number = request_data.api_number;
+
+        return inOrder(gardener_id, device_id, api_number, api_number,
+                (sync_id, current) -> replay(sync_id, current, api_number),
+                sync_db -> {
+                    ResponseEntity<String> response_entity = sync_executor.execute(request, response, method,
+                            request_data.url, request_data.body, token);
+
+                    /* The response includes the api_number, the forged body is stored and sent */
+                    String body = reply(api_number, response_entity.getBody());
+                    sync_journal_service.record(sync_db, api_number, request_data.request_type, request_data.url,
+                            response_entity.getStatusCode().value(), body);
+                    advance(sync_db, api_number);
+                    return new ResponseEntity<>(body, response_entity.getHeaders(), response_entity.getStatusCode());
+                });
+    }
+
+    /*
+     * Same rule for a range of consecutive api_numbers, applied in one
+     * transaction : if any operation fails none is applied. The redundant
+     * operations are folded first (see SyncCoalescer). api_number is
+     * advanced once, to the last api_number of the batch. The response of the
+     * batch is {"api_number": last, "responses": [{"api_number": n, "response": ...}, ...]}
+     */
+    public ResponseEntity<String> applyBatch(Long gardener_id, String device_id, List<RequestData> batch,
+            String token, HttpServletRequest request, HttpServletResponse response) {
+
+        if (batch == null || batch.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Empty batch");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            RequestData request_data = batch.get(i);
+            if (request_data == null || request_data.api_number == null
+                    || request_data.api_number != batch.get(0).api_number + i) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The api_numbers must be consecutive");
+            }
+            if (method(request_data.request_type) == null) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("Unhandled type of HTTP method :" + request_data.request_type);
+            }
+        }
+        long first = batch.get(0).api_number;
+        long last = batch.get(batch.size() - 1).api_number;
+
+        return inOrder(gardener_id, device_id, first, last,
+                (sync_id, current) -> replayBatch(sync_id, current, first, last),
+                sync_db -> {
+                    /* The redundant operations are folded, each api_number gets the response of what it became */
+                    SyncCoalescer.Plan plan = sync_coalescer.coalesce(batch);
+                    Map<Long, ResponseEntity<String>> responses_by_number = new HashMap<>();
+                    for (SyncCoalescer.Operation operation : plan.operations()) {
+                        RequestData request_data = operation.getRequest_data();
+                        ResponseEntity<String> response_entity = sync_executor.execute(request, response,
+                                method(request_data.request_type), request_data.url, request_data.body, token);
+                        for (Long api_number : operation.getApi_numbers()) {
+                            responses_by_number.put(api_number, response_entity);
+                        }
+                    }
+
+                    ObjectNode batch_response = object_mapper.createObjectNode();
+                    batch_response.put("api_number", last);
+                    ArrayNode responses = batch_response.putArray("responses");
+                    for (RequestData request_data : batch) {
+                        /* Every operation has its reply, so it can also be retried alone */
+                        ResponseEntity<String> response_entity = responses_by_number.get(request_data.api_number);
+                        String body = reply(request_data.api_number,
+                                response_entity == null ? null : response_entity.getBody());
+                        sync_journal_service.record(sync_db, request_data.api_number, request_data.request_type,
+                                request_data.url,
+                                response_entity == null ? null : response_entity.getStatusCode().value(), body);
+                        responses.add(toJson(body));
+                    }
+
+                    advance(sync_db, last);
+                    return ResponseEntity.ok(batch_response.toString());
+                });
+    }
+
+    /* The device ended its sync */
+    public void endSession(Long sync_id) {
+        sync_journal_service.endSession(sync_id);
+        locks.remove(sync_id);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.reaper.interval:PT1H}", initialDelayString = "${sync.reaper.interval:PT1H}")
+    public void reap() {
+
+        Date now = new Date();
+        Date inactive = new Date(now.getTime() - session_ttl.toMillis());
+        sync_repo.initLastActivity(now);
+        List<Long> sync_ids = sync_repo.findInactiveSince(inactive);
+        if (!sync_ids.isEmpty()) {
+            sync_repo.deleteInactiveSince(inactive);
+            sync_ids.forEach(this::endSession);
+        }
+
+        /* Sessions of this instance ended (DELETE /sync) or reaped by another one */
+        Set<Long> known = new HashSet<>(locks.keySet());
+        if (!known.isEmpty()) {
+            known.removeAll(sync_repo.findExistingIds(known));
+            known.forEach(this::endSession);
+        }
+    }
+
+    private interface Replay {
+        ResponseEntity<String> run(Long sync_id, long current);
+    }
+
+    private interface Apply {
+        ResponseEntity<String> run(Sync sync_db);
+    }
+
+    /*
+     * Runs replay if [first, last] is already applied, apply in a transaction
+     * when first is the next api_number, and waits for the turn of first when
+     * it is ahead within the window.
+     */
+    private ResponseEntity<String> inOrder(Long gardener_id, String device_id, long first, long last, Replay replay,
+            Apply apply) {
+
+        /* First verify that the sync is ongoing */
+        Long sync_id = sync_repo.findSyncId(gardener_id, device_id);
+        if (sync_id == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No sync is ongoing for this device");
+        }
+        Object lock = locks.computeIfAbsent(sync_id, key -> new Object());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(wait_ms);
+
+        synchronized (lock) {
+            while (true) {
+                Long api_number = sync_repo.findApiNumber(sync_id);
+                /* The sync may have ended meanwhile */
+                if (api_number == null) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No sync is ongoing for this device");
+                }
+                long current = api_number;
+
+                if (last <= current) {
+                    return replay.run(sync_id, current);
+                }
+
+                if (first == current + 1) {
+                    ResponseEntity<String> applied;
+                    try {
+                        applied = new TransactionTemplate(transaction_manager).execute(status -> {
+                            /* Held until the commit, another instance may have applied it meanwhile */
+                            sync_repo.lockSession(sync_id);
+                            Long locked_api_number = sync_repo.findApiNumber(sync_id);
+                            if (locked_api_number == null || locked_api_number != current) {
+                                return null;
+                            }
+
+                            /* Any failure is thrown, and rolls back what was applied */
+                            Sync sync_db = sync_repo.getReferenceById(sync_id);
+                            entity_manager.refresh(sync_db);
+                            return apply.run(sync_db);
+                        });
+                    } finally {
+                        lock.notifyAll();
+                    }
+                    if (applied != null) {
+                        return applied;
+                    }
+                    continue;
+                }
+
+                if (first <= current || first > current + window_size) {
+                    return unexpected(first, current);
+                }
+
+                /* Ahead of its turn, the previous operations are still in flight */
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return unexpected(first, current);
+                }
+                try {
+                    long poll = TimeUnit.MILLISECONDS.toNanos(poll_ms);
+                    TimeUnit.NANOSECONDS.timedWait(lock, Math.min(remaining, poll));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Interrupted");
+                }
+            }
+        }
+    }
+
+    private ResponseEntity<String> replay(Long sync_id, long current, long api_number) {
+
+        String reply = current - api_number < window_size ? sync_journal_service.findReply(sync_id, api_number)
+                : null;
+        if (reply != null) {
+            return ResponseEntity.ok(reply);
+        }
+        /* Syncs started before the journal existed only have the last response */
+        if (api_number == current) {
+            return ResponseEntity.ok(sync_repo.findApiResponse(sync_id));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body("The response of api_number " + api_number + " is no longer kept");
+    }
+
+    /* Rebuilt from the replies of the operations */
+    private ResponseEntity<String> replayBatch(Long sync_id, long current, long first, long last) {
+
+        ObjectNode batch_response = object_mapper.createObjectNode();
+        batch_response.put("api_number", last);
+        ArrayNode responses = batch_response.putArray("responses");
+        for (long api_number = first; api_number <= last; api_number++) {
+            String reply = current - api_number < window_size
+                    ? sync_journal_service.findReply(sync_id, api_number)
+                    : null;
+            if (reply == null) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("The response of api_number " + api_number + " is no longer kept");
+            }
+            responses.add(toJson(reply));
+        }
+        return ResponseEntity.ok(batch_response.toString());
+    }
+
+    /* Only the counter is rewritten, the responses are in the journal */
+    private void advance(Sync sync_db, long api_number) {
+
+        sync_db.setApi_number(api_number);
+        sync_db.setLast_activity(new Date());
+        sync_repo.save(sync_db);
+    }
+
+    private static String reply(long api_number, String body) {
+        return "{\"api_number\": " + api_number + ",  \"response\": " + body + "}";
+    }
+
+    private static ResponseEntity<String> unexpected(long api_number, long current) {
+        /* The online DB api number is returned for debugging purposes */
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(
+                "Unexpected api_number, Received : " + api_number + " and expected is (+1) :" + current);
+    }
+
+    /* Bodies of the controllers are JSON, anything else is kept as a string */
+    private JsonNode toJson(String body) {
+
+        if (body == null) {
+            return object_mapper.nullNode();
+        }
+        try {
+            return object_mapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return object_mapper.getNodeFactory().textNode(body);
+        }
+    }
+
+}
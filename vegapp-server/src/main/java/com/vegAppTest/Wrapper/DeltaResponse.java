@@ -0,0 +1,28 @@
+package com.vegAppTest.Wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.vegAppTest.Entities.Tombstone;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/*
+ * Body of /init?since= : the rows written after the given revision, the
+ * deletions since then, and the revision to send as "since" next time.
+ * The client applies the lists first, then the deletions.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class DeltaResponse extends InitResponse {
+
+    private Long revision;
+    private List<Tombstone> deleted_list;
+
+    public DeltaResponse() {
+        super();
+        deleted_list = new ArrayList<>();
+    }
+
+}
@@ -35,34 +35,35 @@ public class InitResponse {
         plant_list = new ArrayList<>();
     }
 
-    public void addCategoryPrimary(List<CategoryPrimary> category_primary, Long id) {
+    /* The transient ids are read from the relations fetched with the snapshot queries */
+    public void addCategoryPrimary(List<CategoryPrimary> category_primary) {
         for (CategoryPrimary category_primary_loop : category_primary) {
-            category_primary_loop.setGarden_id(id);
+            category_primary_loop.setGarden_id(category_primary_loop.getGarden().getId());
         }
         category_primary_list.addAll(category_primary);
         return;
     }
 
-    public void addCategorySecondary(List<CategorySecondary> category_secondary, Long id) {
+    public void addCategorySecondary(List<CategorySecondary> category_secondary) {
         for (CategorySecondary category_secondary_loop : category_secondary) {
-            category_secondary_loop.setGarden_id(id);
+            category_secondary_loop.setGarden_id(category_secondary_loop.getGarden().getId());
         }
         category_secondary_list.addAll(category_secondary);
         return;
     }
 
-    public void addVegetable(List<Veggie> veggie, Long category_id, Long garden_id) {
+    public void addVegetable(List<Veggie> veggie) {
         for (Veggie veggie_loop : veggie) {
-            veggie_loop.setCategory_primary_id(category_id);
-            veggie_loop.setGarden_id(garden_id);
+            veggie_loop.setCategory_primary_id(veggie_loop.getCategory_primary().getId());
+            veggie_loop.setGarden_id(veggie_loop.getCategory_primary().getGarden().getId());
         }
         veggie_list.addAll(veggie);
         return;
     }
 
-    public void addPlot(List<Plot> plot, Long id) {
+    public void addPlot(List<Plot> plot) {
         for (Plot plot_loop : plot) {
-            plot_loop.setGarden_id(id);
+            plot_loop.setGarden_id(plot_loop.getGarden().getId());
         }
         plot_list.addAll(plot);
         return;
@@ -73,5 +74,4 @@ public class InitResponse {
         return;
     }
 
-
 }
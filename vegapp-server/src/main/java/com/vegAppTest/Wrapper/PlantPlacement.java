@@ -0,0 +1,12 @@
+package com.vegAppTest.Wrapper;
+
+import lombok.Data;
+
+/* One plant of the layout of a plot given to PUT /plants : where, and which vegetable (by name) */
+@Data
+public class PlantPlacement {
+
+    private String location;
+    private String veggie_name;
+
+}
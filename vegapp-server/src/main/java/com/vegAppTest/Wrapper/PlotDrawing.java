@@ -0,0 +1,65 @@
+package com.vegAppTest.Wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/*
+ * What the history page needs to draw a plot version : its lines, its
+ * orientation and its plants with the name of their vegetable. Built from the
+ * rows of Plot_R.findDrawing / findDrawingsByYear, one row per plant (or one
+ * row without plant for an empty plot).
+ */
+@Data
+public class PlotDrawing {
+
+    @Data
+    public static class PlantDrawing {
+
+        private Long id;
+        private Long veggie_id;
+        private String veggie_name;
+        private String location;
+
+    }
+
+    private Long id;
+    private String name;
+    private int version;
+    private String nb_of_lines;
+    private int orientation;
+    private List<PlantDrawing> plants = new ArrayList<>();
+
+    /*
+     * (plot id, name, version, nb_of_lines, orientation, plant id, veggie id,
+     * veggie name, location), ordered by plot
+     */
+    public static List<PlotDrawing> fromRows(List<Object[]> rows) {
+
+        List<PlotDrawing> drawings = new ArrayList<>();
+        PlotDrawing drawing = null;
+        for (Object[] row : rows) {
+            Long plot_id = ((Number) row[0]).longValue();
+            if (drawing == null || !drawing.id.equals(plot_id)) {
+                drawing = new PlotDrawing();
+                drawing.id = plot_id;
+                drawing.name = (String) row[1];
+                drawing.version = ((Number) row[2]).intValue();
+                drawing.nb_of_lines = (String) row[3];
+                drawing.orientation = ((Number) row[4]).intValue();
+                drawings.add(drawing);
+            }
+            if (row[5] != null) {
+                PlantDrawing plant = new PlantDrawing();
+                plant.id = ((Number) row[5]).longValue();
+                plant.veggie_id = row[6] == null ? null : ((Number) row[6]).longValue();
+                plant.veggie_name = row[7] == null ? "" : (String) row[7];
+                plant.location = (String) row[8];
+                drawing.plants.add(plant);
+            }
+        }
+        return drawings;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.vegAppTest.Wrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/*
+ * One year of the history of a garden : the plots created that year and their
+ * versions, see /plot_history. Built from the rows of Plot_R.findHistory /
+ * findHistorySince, one row per (year, plot name).
+ */
+@Data
+public class PlotHistory {
+
+    @Data
+    public static class PlotVersions {
+
+        private String name;
+        private List<Integer> versions = new ArrayList<>();
+
+    }
+
+    private int year;
+    private List<PlotVersions> plots = new ArrayList<>();
+
+    /*
+     * (year, name, versions separated by commas, ...), ordered by year then
+     * name; the rows without year are skipped
+     */
+    public static List<PlotHistory> fromRows(List<Object[]> rows) {
+
+        List<PlotHistory> years = new ArrayList<>();
+        PlotHistory history = null;
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            int year = ((Number) row[0]).intValue();
+            if (history == null || history.year != year) {
+                history = new PlotHistory();
+                history.year = year;
+                years.add(history);
+            }
+            PlotVersions plot = new PlotVersions();
+            plot.name = (String) row[1];
+            for (String version : ((String) row[2]).split(",")) {
+                plot.versions.add(Integer.valueOf(version));
+            }
+            history.plots.add(plot);
+        }
+        return years;
+    }
+
+}
@@ -12,7 +12,7 @@ public class RequestData {
   public JsonNode body;
   public String request_type;
 
-  RequestData() {
+  public RequestData() {
 
   }
 
@@ -0,0 +1,83 @@
+package com.vegAppTest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/*
+ * The whole application on a random port (http), against an embedded Postgres,
+ * so that the requests go through the security filter chain as in production.
+ * The test classes extending it share the same application context.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+        "server.ssl.enabled=false",
+        "spring.jpa.show-sql=false",
+        "gitlab.api.token=test",
+        "gitlab.project.id=test" })
+public abstract class EmbeddedApplication {
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    protected static final String PASSWORD = "test password";
+
+    @Autowired
+    protected TestRestTemplate rest;
+
+    @Autowired
+    protected ObjectMapper object_mapper;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* Registers a new gardener, returns the Authorization header of its token */
+    protected String register(String email) throws Exception {
+
+        ResponseEntity<String> response = send(HttpMethod.POST, "/auth/register", null,
+                "{\"first_name\":\"test\",\"last_name\":\"test\",\"email\":\"" + email
+                        + "\",\"password\":\"" + PASSWORD + "\"}");
+        return bearer(response);
+    }
+
+    /* Authorization header of the token of an /auth response */
+    protected String bearer(ResponseEntity<String> response) throws Exception {
+        return "Bearer " + object_mapper.readTree(response.getBody()).get("token").asText();
+    }
+
+    protected ResponseEntity<String> send(HttpMethod method, String path, String token, String body) {
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (token != null) {
+            headers.set(HttpHeaders.AUTHORIZATION, token);
+        }
+        return rest.exchange(path, method, new HttpEntity<>(body, headers), String.class);
+    }
+
+}
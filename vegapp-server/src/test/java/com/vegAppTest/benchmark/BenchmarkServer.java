@@ -0,0 +1,117 @@
+package com.vegAppTest.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import com.vegAppTest.ConnectDbApplication;
+
+/*
+ * The whole application on a random port (http), against an embedded Postgres
+ * started for it, for the benchmarks that go through HTTP. Extra properties
+ * are given as "name=value".
+ */
+class BenchmarkServer implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+    private final String base_url;
+
+    private BenchmarkServer(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+        this.base_url = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    static BenchmarkServer start(String... properties) throws IOException {
+
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--server.port=0",
+                "--server.ssl.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--gitlab.api.token=benchmark",
+                "--gitlab.project.id=benchmark"));
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+        try {
+            return new BenchmarkServer(postgres,
+                    new SpringApplicationBuilder(ConnectDbApplication.class).run(args.toArray(String[]::new)));
+        } catch (RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+    }
+
+    String getBase_url() {
+        return base_url;
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+
+    /* Registers a new gardener, returns the Authorization header of its token */
+    String register(String email, String password) throws Exception {
+
+        String body = "{\"first_name\":\"bench\",\"last_name\":\"bench\",\"email\":\"" + email
+                + "\",\"password\":\"" + password + "\"}";
+        HttpResponse<String> response = send("/auth/register", "POST", null, body);
+        return "Bearer " + MAPPER.readTree(response.body()).get("token").asText();
+    }
+
+    HttpResponse<String> send(String path, String method, String token, String body) throws Exception {
+        return send(path, method, token, body, new String[0]);
+    }
+
+    /* headers are name, value, name, value... */
+    HttpResponse<String> send(String path, String method, String token, String body, String... headers)
+            throws Exception {
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base_url + path))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", token);
+        }
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /* Value of a sorted array of latencies, in ms */
+    static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.vegAppTest.benchmark;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/*   Entities   */
+import com.vegAppTest.Entities.Gardener;
+import com.vegAppTest.Entities.Gardener.Role;
+
+import com.vegAppTest.Security.Service.JwtService;
+
+/*
+ * Token work of one authenticated request :
+ * - perRequestBefore : what the filter and ControllerService used to do, four
+ * parses of the token, each decoding the key and building a parser
+ * - perRequestAfter : JwtService.verify once, with the key and parser built
+ * at startup, then the checks on the claims
+ * Not a unit test, run it by hand:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.vegAppTest.benchmark.JwtVerificationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    /* Same key as JwtService */
+    private static final String SECRET_KEY = "784a4b207a6d4a7b4d5f464e3b3379705e27562027506b4055532b2b687e4c3f";
+
+    private JwtService jwt_service;
+    private Gardener gardener;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwt_service = new JwtService();
+        gardener = new Gardener("bench", "bench", "bench@vegapp.be", "password", Role.USER);
+        token = jwt_service.generateToken(gardener);
+    }
+
+    @Benchmark
+    public boolean perRequestBefore() {
+        /* Filter : extractUsername, then isTokenValid (extractUsername, extractExpiration) */
+        String username = parse(token).getSubject();
+        boolean valid = parse(token).getSubject().equals(username) && !parse(token).getExpiration().before(new Date());
+        /* Controller : ControllerService.getGardenerFromToken */
+        return valid && parse(token).getSubject().equals(gardener.getUsername());
+    }
+
+    @Benchmark
+    public boolean perRequestAfter() {
+        Claims claims = jwt_service.verify(token);
+        return claims != null && jwt_service.isTokenValid(claims, gardener);
+    }
+
+    private static Claims parse(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(JwtVerificationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
@@ -0,0 +1,146 @@
+package com.vegAppTest.benchmark;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Latency of GET /init while a burst of logins (POST /auth/authenticate)
+ * hits the application started on an embedded Postgres (see BenchmarkServer).
+ * - quiet : only the /init clients
+ * - storm : the same /init clients, plus the login clients
+ * With the hashing on its own executor (PasswordHashingService), the /init
+ * p99 of the storm should stay close to the quiet one; the logins that do not
+ * fit in auth.hashing.queue-capacity get a 503. Not a unit test, run it by hand:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.vegAppTest.benchmark.LoginStormBenchmark [login clients] [init clients] [seconds]
+ */
+public class LoginStormBenchmark {
+
+    private static final String PASSWORD = "storm password";
+
+    /* What a client measured */
+    private record Result(long[] latencies, long rejected, long failed) {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int login_clients = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int init_clients = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        try (BenchmarkServer server = BenchmarkServer.start()) {
+
+            String token = server.register("init@vegapp.be", PASSWORD);
+            populate(server, token);
+            List<String> emails = new ArrayList<>();
+            for (int c = 0; c < login_clients; c++) {
+                emails.add("storm-" + c + "@vegapp.be");
+                server.register(emails.get(c), PASSWORD);
+            }
+
+            /* Warmup */
+            run(server, token, init_clients, List.of(), 3);
+
+            List<Result> quiet = run(server, token, init_clients, List.of(), seconds);
+            List<Result> storm = run(server, token, init_clients, emails, seconds);
+
+            System.out.printf("%d init clients, %d login clients, %d s per phase%n", init_clients, login_clients,
+                    seconds);
+            System.out.printf("%-16s %10s %10s %12s %12s %8s%n", "", "requests", "req/s", "p50 (ms)", "p99 (ms)",
+                    "503");
+            print("init (quiet)", quiet.subList(0, init_clients), seconds);
+            print("init (storm)", storm.subList(0, init_clients), seconds);
+            print("login (storm)", storm.subList(init_clients, storm.size()), seconds);
+        }
+    }
+
+    /* Two gardens, with a few vegetables and plots, so that /init has something to return */
+    private static void populate(BenchmarkServer server, String token) throws Exception {
+
+        for (String garden : List.of("g1", "g2")) {
+            server.send("/garden", "POST", token, "{\"name\":\"" + garden + "\"}");
+            for (String vegetable : List.of("Carrot", "Leek", "Onion")) {
+                server.send("/vegetable/Root/" + garden + "/null", "POST", token, "{\"name\":\"" + vegetable
+                        + "\",\"seed_availability\":1,\"seed_expiration\":2026,\"harvest_start\":1,"
+                        + "\"harvest_end\":2,\"plant_start\":\"March\",\"plant_end\":\"Nov.\",\"note\":\"n\"}");
+            }
+            server.send("/plot/" + garden, "POST", token, "{\"name\":\"p1\",\"version\":0}");
+            server.send("/plant/p1/1.1/Carrot/" + garden + "/0", "POST", token, null);
+        }
+    }
+
+    /* The init clients first, then one login client per email */
+    private static List<Result> run(BenchmarkServer server, String token, int init_clients, List<String> emails,
+            int seconds) throws Exception {
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        ExecutorService executor = Executors.newFixedThreadPool(init_clients + emails.size());
+        List<Future<Result>> futures = new ArrayList<>();
+
+        for (int c = 0; c < init_clients; c++) {
+            futures.add(executor.submit(() -> loop(end, () -> server.send("/init", "GET", token, null))));
+        }
+        for (String email : emails) {
+            String body = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+            futures.add(executor.submit(() -> loop(end,
+                    () -> server.send("/auth/authenticate", "POST", null, body))));
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Future<Result> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private interface Request {
+        HttpResponse<String> send() throws Exception;
+    }
+
+    private static Result loop(long end, Request request) throws Exception {
+
+        long[] latencies = new long[1024];
+        int count = 0;
+        long rejected = 0;
+        long failed = 0;
+        while (System.nanoTime() - end < 0) {
+            long sent = System.nanoTime();
+            int status = request.send().statusCode();
+            if (status == 503) {
+                rejected++;
+                continue;
+            }
+            if (status >= 300) {
+                failed++;
+                continue;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - sent;
+        }
+        return new Result(Arrays.copyOf(latencies, count), rejected, failed);
+    }
+
+    private static void print(String name, List<Result> results, int seconds) {
+
+        long[] latencies = results.stream().flatMapToLong(result -> Arrays.stream(result.latencies())).toArray();
+        Arrays.sort(latencies);
+        long rejected = results.stream().mapToLong(Result::rejected).sum();
+        long failed = results.stream().mapToLong(Result::failed).sum();
+        System.out.printf("%-16s %10d %10.1f %12.2f %12.2f %8d%s%n", name, latencies.length,
+                (double) latencies.length / seconds, BenchmarkServer.percentile(latencies, 0.50),
+                BenchmarkServer.percentile(latencies, 0.99), rejected,
+                failed > 0 ? "  (" + failed + " failed)" : "");
+    }
+
+}
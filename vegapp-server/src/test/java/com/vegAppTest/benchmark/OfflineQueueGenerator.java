@@ -0,0 +1,235 @@
+package com.vegAppTest.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import com.vegAppTest.Wrapper.RequestData;
+
+/*
+ * Queue of operations of a client that was offline, as replayed through
+ * PUT /sync : gardens, veggies, plots and plants created, modified and
+ * deleted in a plausible order. The generator keeps a model of what the
+ * gardener has, so every operation applies to something that exists and
+ * succeeds (the same seed gives the same queue).
+ */
+class OfflineQueueGenerator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final int MAX_GARDENS = 3;
+
+    /* Weights of the kinds of operations */
+    private enum Kind {
+        CREATE_GARDEN(3),
+        CREATE_VEGGIE(25),
+        UPDATE_VEGGIE(20),
+        DELETE_VEGGIE(7),
+        CREATE_PLOT(10),
+        UPDATE_PLOT(8),
+        CREATE_PLANT(22),
+        DELETE_PLOT(5);
+
+        final int weight;
+
+        Kind(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private static class GardenModel {
+        final String name;
+        /* Veggies, with the number of plants of each */
+        final Map<String, Integer> veggies = new LinkedHashMap<>();
+        /* Plots (version 0), with the veggies planted in each */
+        final Map<String, List<String>> plots = new LinkedHashMap<>();
+
+        GardenModel(String name) {
+            this.name = name;
+        }
+    }
+
+    private final String base_url;
+    private final Random random;
+    private final List<GardenModel> gardens = new ArrayList<>();
+    private final List<RequestData> queue = new ArrayList<>();
+    private int names;
+
+    OfflineQueueGenerator(String base_url, long seed) {
+        this.base_url = base_url;
+        this.random = new Random(seed);
+    }
+
+    /* The operations, with api_numbers from 1 */
+    List<RequestData> generate(int operations) {
+
+        createGarden();
+        while (queue.size() < operations) {
+            next();
+        }
+        return queue;
+    }
+
+    private void next() {
+
+        int total = 0;
+        for (Kind kind : Kind.values()) {
+            total += kind.weight;
+        }
+        int pick = random.nextInt(total);
+        Kind kind = Kind.values()[0];
+        for (Kind candidate : Kind.values()) {
+            pick -= candidate.weight;
+            if (pick < 0) {
+                kind = candidate;
+                break;
+            }
+        }
+
+        GardenModel garden = gardens.get(random.nextInt(gardens.size()));
+        switch (kind) {
+            case CREATE_GARDEN:
+                if (gardens.size() < MAX_GARDENS) {
+                    createGarden();
+                }
+                break;
+            case CREATE_VEGGIE:
+                createVeggie(garden);
+                break;
+            case UPDATE_VEGGIE:
+                if (!garden.veggies.isEmpty()) {
+                    updateVeggie(garden, pick(garden.veggies.keySet()));
+                }
+                break;
+            case DELETE_VEGGIE:
+                List<String> unplanted = new ArrayList<>();
+                garden.veggies.forEach((veggie, plants) -> {
+                    if (plants == 0) {
+                        unplanted.add(veggie);
+                    }
+                });
+                if (!unplanted.isEmpty()) {
+                    deleteVeggie(garden, pick(unplanted));
+                }
+                break;
+            case CREATE_PLOT:
+                createPlot(garden);
+                break;
+            case UPDATE_PLOT:
+                if (!garden.plots.isEmpty()) {
+                    updatePlot(garden, pick(garden.plots.keySet()));
+                }
+                break;
+            case CREATE_PLANT:
+                if (!garden.plots.isEmpty() && !garden.veggies.isEmpty()) {
+                    createPlant(garden, pick(garden.plots.keySet()), pick(garden.veggies.keySet()));
+                }
+                break;
+            case DELETE_PLOT:
+                /* The plants of a plot are deleted by its id, unknown while offline */
+                List<String> empty = new ArrayList<>();
+                garden.plots.forEach((plot, plants) -> {
+                    if (plants.isEmpty()) {
+                        empty.add(plot);
+                    }
+                });
+                if (!empty.isEmpty()) {
+                    deletePlot(garden, pick(empty));
+                }
+                break;
+        }
+    }
+
+    private void createGarden() {
+
+        GardenModel garden = new GardenModel("garden-" + (++names));
+        gardens.add(garden);
+        ObjectNode body = MAPPER.createObjectNode().put("name", garden.name);
+        add("post", "/garden", body);
+    }
+
+    private void createVeggie(GardenModel garden) {
+
+        String veggie = "veggie-" + (++names);
+        garden.veggies.put(veggie, 0);
+        add("post", "/vegetable/Root/" + garden.name + "/null", veggieBody(veggie));
+    }
+
+    private void updateVeggie(GardenModel garden, String veggie) {
+
+        /* Half of the updates rename it, the others only change the note */
+        String name = random.nextBoolean() ? "veggie-" + (++names) : veggie;
+        garden.veggies.put(name, garden.veggies.remove(veggie));
+        garden.plots.values().forEach(plants -> plants.replaceAll(planted -> planted.equals(veggie) ? name : planted));
+        add("put", "/vegetable/" + garden.name + "/Root/null/" + veggie + "/Root/null", veggieBody(name));
+    }
+
+    private void deleteVeggie(GardenModel garden, String veggie) {
+
+        garden.veggies.remove(veggie);
+        add("delete", "/vegetable/" + veggie + "/Root/" + garden.name + "/null", null);
+    }
+
+    private void createPlot(GardenModel garden) {
+
+        String plot = "plot-" + (++names);
+        garden.plots.put(plot, new ArrayList<>());
+        ObjectNode body = MAPPER.createObjectNode().put("name", plot).put("version", 0).put("orientation", 0)
+                .put("in_calendar", 0).put("nb_of_lines", "1.2/2.2/3.2").put("note", "note " + names);
+        add("post", "/plot/" + garden.name, body);
+    }
+
+    private void updatePlot(GardenModel garden, String plot) {
+
+        String name = "plot-" + (++names);
+        garden.plots.put(name, garden.plots.remove(plot));
+        ObjectNode body = MAPPER.createObjectNode().put("name", name).put("version", 0).put("orientation", 0)
+                .put("in_calendar", 0).put("note", "note " + names);
+        add("put", "/plot/" + garden.name + "/" + plot, body);
+    }
+
+    private void createPlant(GardenModel garden, String plot, String veggie) {
+
+        List<String> plants = garden.plots.get(plot);
+        plants.add(veggie);
+        garden.veggies.merge(veggie, 1, Integer::sum);
+        String location = (plants.size() % 3 + 1) + "." + (plants.size() / 3 + 1);
+        add("post", "/plant/" + plot + "/" + location + "/" + veggie + "/" + garden.name + "/0", null);
+    }
+
+    private void deletePlot(GardenModel garden, String plot) {
+
+        garden.plots.remove(plot);
+        add("delete", "/plot/" + garden.name + "/" + plot, null);
+    }
+
+    private ObjectNode veggieBody(String name) {
+
+        return MAPPER.createObjectNode().put("name", name).put("seed_availability", 0).put("seed_expiration", 0)
+                .put("harvest_start", random.nextInt(20)).put("harvest_end", 20 + random.nextInt(30))
+                .put("plant_start", "March").put("plant_end", "Nov.").put("note", "note " + names);
+    }
+
+    private <T> T pick(Iterable<T> values) {
+
+        List<T> list = new ArrayList<>();
+        values.forEach(list::add);
+        return list.get(random.nextInt(list.size()));
+    }
+
+    private void add(String request_type, String path, ObjectNode body) {
+
+        RequestData request_data = new RequestData();
+        request_data.api_number = (long) queue.size() + 1;
+        request_data.url = base_url + path;
+        request_data.request_type = request_type;
+        request_data.body = body;
+        queue.add(request_data);
+    }
+
+}
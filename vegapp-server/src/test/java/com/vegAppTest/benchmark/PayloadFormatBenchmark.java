@@ -0,0 +1,170 @@
+package com.vegAppTest.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/*   Entities   */
+import com.vegAppTest.Entities.CategoryPrimary;
+import com.vegAppTest.Entities.CategorySecondary;
+import com.vegAppTest.Entities.Garden;
+import com.vegAppTest.Entities.Plant;
+import com.vegAppTest.Entities.Plot;
+import com.vegAppTest.Entities.Veggie;
+import com.vegAppTest.Wrapper.InitResponse;
+
+/*
+ * Size and serialize/deserialize time of a large synthetic InitResponse in
+ * JSON, CBOR and Smile. Not a unit test, run it by hand:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.vegAppTest.benchmark.PayloadFormatBenchmark [gardens]
+ */
+public class PayloadFormatBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    public static void main(String[] args) throws IOException {
+
+        int gardens = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        InitResponse init_response = syntheticGardener(gardens);
+
+        /* Same settings as the mapper of Spring MVC */
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+
+        System.out.printf("%d gardens, %d veggies, %d plots, %d plants%n", gardens,
+                init_response.getVeggie_list().size(), init_response.getPlot_list().size(),
+                init_response.getPlant_list().size());
+        System.out.printf("%-6s %12s %12s %14s %14s%n", "format", "bytes", "gzip bytes", "serialize ms",
+                "deserialize ms");
+
+        run("json", json, init_response);
+        run("cbor", json.copyWith(new CBORFactory()), init_response);
+        run("smile", json.copyWith(new SmileFactory()), init_response);
+    }
+
+    private static void run(String name, ObjectMapper mapper, InitResponse init_response) throws IOException {
+
+        byte[] body = mapper.writeValueAsBytes(init_response);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            mapper.readValue(mapper.writeValueAsBytes(init_response), InitResponse.class);
+        }
+
+        long serialize = 0;
+        long deserialize = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            body = mapper.writeValueAsBytes(init_response);
+            long middle = System.nanoTime();
+            mapper.readValue(body, InitResponse.class);
+            long end = System.nanoTime();
+
+            serialize += middle - start;
+            deserialize += end - middle;
+        }
+
+        System.out.printf("%-6s %12d %12d %14.3f %14.3f%n", name, body.length, gzip(body).length,
+                serialize / 1e6 / MEASURED_ROUNDS, deserialize / 1e6 / MEASURED_ROUNDS);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(body);
+        }
+        return output.toByteArray();
+    }
+
+    /* 10 primary and 5 secondary categories, 200 veggies, 30 plots in 10 versions of 40 plants per garden */
+    private static InitResponse syntheticGardener(int gardens) {
+
+        InitResponse init_response = new InitResponse();
+        List<Garden> garden_list = new ArrayList<>();
+        long id = 1;
+
+        for (int g = 0; g < gardens; g++) {
+            Garden garden = new Garden();
+            garden.setId(id++);
+            garden.setName("Garden " + g);
+            garden_list.add(garden);
+
+            List<CategoryPrimary> category_primaries = new ArrayList<>();
+            for (int c = 0; c < 10; c++) {
+                CategoryPrimary category_primary = new CategoryPrimary();
+                category_primary.setId(id++);
+                category_primary.setName("Primary category " + c);
+                category_primary.setGarden_id(garden.getId());
+                category_primaries.add(category_primary);
+            }
+            init_response.getCategory_primary_list().addAll(category_primaries);
+
+            List<CategorySecondary> category_secondaries = new ArrayList<>();
+            for (int c = 0; c < 5; c++) {
+                CategorySecondary category_secondary = new CategorySecondary("Secondary category " + c,
+                        CategorySecondary.Color.values()[c % CategorySecondary.Color.values().length]);
+                category_secondary.setId(id++);
+                category_secondary.setGarden_id(garden.getId());
+                category_secondaries.add(category_secondary);
+            }
+            init_response.getCategory_secondary_list().addAll(category_secondaries);
+
+            List<Veggie> veggies = new ArrayList<>();
+            for (int v = 0; v < 200; v++) {
+                Veggie veggie = new Veggie();
+                veggie.setId(id++);
+                veggie.setName("Veggie " + v);
+                veggie.setSeed_availability(v % 2);
+                veggie.setSeed_expiration(2020 + v % 10);
+                veggie.setHarvest_start(v % 12);
+                veggie.setHarvest_end((v + 3) % 12);
+                veggie.setPlant_start("March");
+                veggie.setPlant_end("October");
+                veggie.setNote("Sow in rows, water twice a week");
+                veggie.setCategory_primary_id(category_primaries.get(v % 10).getId());
+                veggie.setCategory_secondary_id(category_secondaries.get(v % 5).getId());
+                veggie.setGarden_id(garden.getId());
+                veggies.add(veggie);
+            }
+            init_response.getVeggie_list().addAll(veggies);
+
+            for (int p = 0; p < 30; p++) {
+                for (int version = 0; version < 10; version++) {
+                    Plot plot = new Plot();
+                    plot.setId(id++);
+                    plot.setName("Plot " + p);
+                    plot.setNb_of_lines("1.4/2.4/3.4/4.4/5.4/6.4/7.4/8.4/9.4/10.4");
+                    plot.setCreation_date(new Date(1_600_000_000_000L + version * 86_400_000L));
+                    plot.setVersion(version);
+                    plot.setNote("Version " + version);
+                    plot.setGarden_id(garden.getId());
+                    init_response.getPlot_list().add(plot);
+
+                    for (int l = 0; l < 40; l++) {
+                        Plant plant = new Plant();
+                        plant.setId(id++);
+                        plant.setPlot_id(plot.getId());
+                        plant.setVeggie_id(veggies.get((p * 40 + l) % veggies.size()).getId());
+                        plant.setVegetable_location((l / 4 + 1) + "." + (l % 4 + 1));
+                        init_response.getPlant_list().add(plant);
+                    }
+                }
+            }
+        }
+        init_response.setGarden_list(garden_list);
+
+        return init_response;
+    }
+
+}
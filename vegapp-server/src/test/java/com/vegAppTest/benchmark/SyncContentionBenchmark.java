@@ -0,0 +1,114 @@
+package com.vegAppTest.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Throughput of PUT /sync with a fixed number of client threads spread over
+ * 1, 2, 4... distinct gardeners. The operations of a gardener are serialized
+ * (advisory lock), so the throughput should grow with the number of gardeners
+ * until the threads are spread one per gardener. Not a unit test, run it by
+ * hand against a running server (http, no SSL) :
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.vegAppTest.benchmark.SyncContentionBenchmark [base url] [threads] [operations per thread]
+ */
+public class SyncContentionBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    public static void main(String[] args) throws Exception {
+
+        String base_url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        System.out.printf("%d threads, %d operations per thread%n", threads, operations);
+        System.out.printf("%10s %12s %10s%n", "gardeners", "ops/s", "errors");
+
+        for (int gardeners = 1; gardeners <= threads; gardeners *= 2) {
+            run(base_url, threads, operations, gardeners);
+        }
+    }
+
+    private static void run(String base_url, int threads, int operations, int gardeners) throws Exception {
+
+        /* Every run has its own gardeners and syncs, each with a garden that is renamed */
+        List<String> tokens = new ArrayList<>();
+        List<Long> garden_ids = new ArrayList<>();
+        List<AtomicLong> api_numbers = new ArrayList<>();
+        for (int g = 0; g < gardeners; g++) {
+            String token = register(base_url);
+            HttpResponse<String> garden = send(base_url + "/garden", "POST", token, "{\"name\":\"bench\"}");
+            send(base_url + "/sync", "POST", token, null);
+            tokens.add(token);
+            garden_ids.add(MAPPER.readTree(garden.body()).get("id").asLong());
+            api_numbers.add(new AtomicLong());
+        }
+
+        AtomicLong errors = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int gardener = t % gardeners;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < operations; i++) {
+                    /* The threads of a gardener pipeline their operations, within the window of the server */
+                    long api_number = api_numbers.get(gardener).incrementAndGet();
+                    String body = "{\"api_number\":" + api_number + ",\"url\":\"" + base_url
+                            + "/garden\",\"request_type\":\"put\",\"body\":{\"id\":" + garden_ids.get(gardener)
+                            + ",\"name\":\"bench " + api_number + "\"}}";
+                    HttpResponse<String> response = send(base_url + "/sync", "PUT", tokens.get(gardener), body);
+                    if (response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("%10d %12.1f %10d%n", gardeners, threads * operations / seconds, errors.get());
+    }
+
+    private static String register(String base_url) throws Exception {
+
+        String email = "bench-" + System.nanoTime() + "@vegapp.be";
+        String body = "{\"first_name\":\"bench\",\"last_name\":\"bench\",\"email\":\"" + email
+                + "\",\"password\":\"bench\"}";
+        HttpResponse<String> response = send(base_url + "/auth/register", "POST", null, body);
+        return "Bearer " + MAPPER.readTree(response.body()).get("token").asText();
+    }
+
+    private static HttpResponse<String> send(String url, String method, String token, String body)
+            throws Exception {
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", token);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.vegAppTest.benchmark;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import com.vegAppTest.Wrapper.RequestData;
+
+/*
+ * Replay of offline queues through PUT /sync (or PUT /sync/batch), by many
+ * gardeners at once, against the whole application started on an embedded
+ * Postgres (see BenchmarkServer). Each gardener replays its queue (see OfflineQueueGenerator) one
+ * request at a time, as the app does when it gets back online. Reports the
+ * operations per second, the p50/p99 latency of the requests and the SQL
+ * statements per operation (Hibernate statistics, the authentication
+ * included). Not a unit test, run it by hand:
+ *
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        com.vegAppTest.benchmark.SyncReplayBenchmark [gardeners] [operations per gardener] [batch size] [seed]
+ *
+ * A batch size of 1 sends PUT /sync, more sends PUT /sync/batch.
+ */
+public class SyncReplayBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String DEVICE_ID_HEADER = "X-Device-Id";
+    private static final String DEVICE_ID = "benchmark";
+
+    private static final int WARMUP_GARDENERS = 4;
+    private static final int WARMUP_OPERATIONS = 100;
+
+    /* What a run measured */
+    private record Result(long operations, long errors, double seconds, long[] latencies, long statements) {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int gardeners = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int batch_size = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        try (BenchmarkServer server = BenchmarkServer.start("spring.jpa.properties.hibernate.generate_statistics=true")) {
+
+            Statistics statistics = server.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class)
+                    .getStatistics();
+
+            run(server, statistics, WARMUP_GARDENERS, WARMUP_OPERATIONS, batch_size, seed);
+            Result result = run(server, statistics, gardeners, operations, batch_size, seed + 1);
+
+            long[] latencies = result.latencies();
+            Arrays.sort(latencies);
+            System.out.printf("%d gardeners, %d operations each, batches of %d%n", gardeners, operations,
+                    batch_size);
+            System.out.printf("%12s %12s %12s %12s %14s %10s%n", "operations", "ops/s", "p50 (ms)", "p99 (ms)",
+                    "statements/op", "errors");
+            System.out.printf("%12d %12.1f %12.2f %12.2f %14.1f %10d%n", result.operations(),
+                    result.operations() / result.seconds(), BenchmarkServer.percentile(latencies, 0.50),
+                    BenchmarkServer.percentile(latencies, 0.99), (double) result.statements() / result.operations(),
+                    result.errors());
+        }
+    }
+
+    private static Result run(BenchmarkServer server, Statistics statistics, int gardeners, int operations,
+            int batch_size, long seed) throws Exception {
+
+        /* Every gardener has its account, its sync and its queue before the clock starts */
+        List<String> tokens = new ArrayList<>();
+        List<List<RequestData>> queues = new ArrayList<>();
+        for (int g = 0; g < gardeners; g++) {
+            String token = server.register("replay-" + System.nanoTime() + "@vegapp.be", "replay");
+            server.send("/sync", "POST", token, null, DEVICE_ID_HEADER, DEVICE_ID);
+            tokens.add(token);
+            queues.add(new OfflineQueueGenerator(server.getBase_url(), seed * 1_000_003 + g).generate(operations));
+        }
+
+        AtomicLong errors = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(gardeners);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int g = 0; g < gardeners; g++) {
+            String token = tokens.get(g);
+            List<RequestData> queue = queues.get(g);
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[(queue.size() + batch_size - 1) / batch_size];
+                for (int i = 0, request = 0; i < queue.size(); i += batch_size, request++) {
+                    List<RequestData> batch = queue.subList(i, Math.min(i + batch_size, queue.size()));
+                    String body = batch_size == 1 ? MAPPER.writeValueAsString(batch.get(0))
+                            : MAPPER.writeValueAsString(batch);
+                    long sent = System.nanoTime();
+                    HttpResponse<String> response = server.send(batch_size == 1 ? "/sync" : "/sync/batch", "PUT",
+                            token, body, DEVICE_ID_HEADER, DEVICE_ID);
+                    latencies[request] = System.nanoTime() - sent;
+                    if (response.statusCode() >= 300) {
+                        /* The next operations would wait for this one until sync.window.wait-ms */
+                        errors.addAndGet(queue.size() - i);
+                        return Arrays.copyOf(latencies, request + 1);
+                    }
+                }
+                return latencies;
+            }));
+        }
+
+        List<long[]> latencies = new ArrayList<>();
+        for (Future<long[]> future : futures) {
+            latencies.add(future.get());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long statements = statistics.getPrepareStatementCount();
+        executor.shutdown();
+
+        long[] all = latencies.stream().flatMapToLong(Arrays::stream).toArray();
+        return new Result((long) gardeners * operations, errors.get(), seconds, all, statements);
+    }
+
+}
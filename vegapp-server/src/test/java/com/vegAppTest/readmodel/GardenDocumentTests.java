@@ -0,0 +1,61 @@
+package com.vegAppTest.readmodel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import com.vegAppTest.EmbeddedApplication;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.GardenDocument_R;
+import com.vegAppTest.Repositories.Gardener_R;
+
+/*
+ * JSONB document of a garden (GardenDocumentService), rebuilt before the
+ * commit of the transaction that wrote the garden : it must hold what the
+ * transaction wrote, whatever entities its persistence context still has.
+ */
+class GardenDocumentTests extends EmbeddedApplication {
+
+    @Autowired
+    Gardener_R gardener_repo;
+
+    @Autowired
+    GardenDocument_R garden_document_repo;
+
+    @Test
+    void categoryRenamedInABatchIsInTheDocument() throws Exception {
+
+        String email = "document-" + UUID.randomUUID() + "@vegapp.be";
+        String token = register(email);
+        Long gardener_id = gardener_repo.findByEmail(email).orElseThrow().getId();
+        Long garden_id = object_mapper.readTree(send(HttpMethod.POST, "/garden", token, "{\"name\":\"g\"}").getBody())
+                .get("id").asLong();
+
+        /* Created then renamed in the same transaction */
+        assertEquals(HttpStatus.OK, send(HttpMethod.POST, "/sync", token, null).getStatusCode());
+        String batch = "[" + operation(1, "post", "/categorySecondary/g", "{\"name\":\"before\",\"color\":\"RED\"}")
+                + "," + operation(2, "put", "/categorySecondary/g/before", "{\"name\":\"after\",\"color\":\"BLUE\"}")
+                + "]";
+        assertEquals(HttpStatus.OK, send(HttpMethod.PUT, "/sync/batch", token, batch).getStatusCode());
+
+        JsonNode categories = object_mapper.readTree(garden_document_repo.findDocument(gardener_id, garden_id))
+                .get("category_secondary_list");
+        assertEquals(1, categories.size());
+        assertEquals("after", categories.get(0).get("name").asText());
+        assertEquals("BLUE", categories.get(0).get("color").asText());
+    }
+
+    private static String operation(long api_number, String request_type, String url, String body) {
+        return "{\"api_number\":" + api_number + ",\"request_type\":\"" + request_type + "\",\"url\":\"" + url
+                + "\",\"body\":" + body + "}";
+    }
+
+}
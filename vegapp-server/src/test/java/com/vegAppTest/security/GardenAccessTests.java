@@ -0,0 +1,131 @@
+package com.vegAppTest.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import com.vegAppTest.EmbeddedApplication;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.Gardener_R;
+import com.vegAppTest.Repositories.Plot_R;
+
+/*
+ * Status of the owner-only endpoints for each access to a garden (see
+ * GardenAccessService) : the owner, a gardener it shared the garden with as
+ * admin or as observer, and a gardener without access.
+ */
+class GardenAccessTests extends EmbeddedApplication {
+
+    @Autowired
+    Gardener_R gardener_repo;
+
+    @Autowired
+    Plot_R plot_repo;
+
+    private String owner;
+    private String admin;
+    private String observer;
+    private String stranger;
+    private Long garden_id;
+    private Long plot_id;
+
+    @BeforeEach
+    void shareGarden() throws Exception {
+
+        String owner_email = email();
+        String admin_email = email();
+        String observer_email = email();
+        owner = register(owner_email);
+        admin = register(admin_email);
+        observer = register(observer_email);
+        stranger = register(email());
+
+        garden_id = object_mapper.readTree(send(HttpMethod.POST, "/garden", owner, "{\"name\":\"shared\"}").getBody())
+                .get("id").asLong();
+        assertEquals(HttpStatus.OK, share(owner, admin_email, 1));
+        assertEquals(HttpStatus.OK, share(owner, observer_email, 2));
+
+        send(HttpMethod.POST, "/plot/shared", owner, "{\"name\":\"p1\",\"version\":0}");
+        plot_id = plot_repo.findByGardenAndNameAndVersion(garden_id, "p1", 0).orElseThrow().getId();
+    }
+
+    @Test
+    void everyAccessReadsTheGarden() {
+
+        String history = "/plot_history?garden_id=" + garden_id;
+        assertEquals(HttpStatus.OK, status(HttpMethod.GET, history, owner, null));
+        assertEquals(HttpStatus.OK, status(HttpMethod.GET, history, admin, null));
+        assertEquals(HttpStatus.OK, status(HttpMethod.GET, history, observer, null));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.GET, history, stranger, null));
+    }
+
+    @Test
+    void onlyTheOwnerRenamesTheGarden() {
+
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.PUT, "/garden", admin, rename("by admin")));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.PUT, "/garden", observer, rename("by observer")));
+        assertEquals(HttpStatus.NOT_FOUND, status(HttpMethod.PUT, "/garden", stranger, rename("by stranger")));
+        assertEquals(HttpStatus.OK, status(HttpMethod.PUT, "/garden", owner, rename("by owner")));
+    }
+
+    @Test
+    void onlyTheOwnerSharesTheGarden() throws Exception {
+
+        String email = email();
+        register(email);
+        assertEquals(HttpStatus.FORBIDDEN, share(admin, email, 2));
+        assertEquals(HttpStatus.FORBIDDEN, share(observer, email, 2));
+        assertEquals(HttpStatus.FORBIDDEN, share(stranger, email, 2));
+        assertEquals(HttpStatus.OK, share(owner, email, 2));
+    }
+
+    @Test
+    void onlyTheOwnerDeletesThePlantsOfAPlot() {
+
+        String plants = "/plants/" + plot_id;
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, plants, admin, null));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, plants, observer, null));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, plants, stranger, null));
+        assertEquals(HttpStatus.OK, status(HttpMethod.DELETE, plants, owner, null));
+    }
+
+    @Test
+    void onlyTheOwnerDeletesTheGarden() {
+
+        String garden = "/garden/" + garden_id;
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, garden, admin, null));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, garden, observer, null));
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.DELETE, garden, stranger, null));
+        assertEquals(HttpStatus.OK, status(HttpMethod.DELETE, garden, owner, null));
+
+        /* Gone for the gardeners it was shared with too */
+        assertEquals(HttpStatus.FORBIDDEN, status(HttpMethod.GET, "/plot_history?garden_id=" + garden_id, observer,
+                null));
+    }
+
+    private HttpStatus share(String token, String email, int role) {
+        Long gardener_id = gardener_repo.findByEmail(email).orElseThrow().getId();
+        return status(HttpMethod.POST, "/role", token,
+                "{\"garden_id\":" + garden_id + ",\"gardener_id\":" + gardener_id + ",\"role\":" + role + "}");
+    }
+
+    private String rename(String name) {
+        return "{\"id\":" + garden_id + ",\"name\":\"" + name + "\"}";
+    }
+
+    private HttpStatus status(HttpMethod method, String path, String token, String body) {
+        return HttpStatus.valueOf(send(method, path, token, body).getStatusCode().value());
+    }
+
+    private static String email() {
+        return "access-" + UUID.randomUUID() + "@vegapp.be";
+    }
+
+}
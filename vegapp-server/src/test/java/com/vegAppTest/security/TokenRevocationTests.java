@@ -0,0 +1,139 @@
+package com.vegAppTest.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.vegAppTest.EmbeddedApplication;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+
+/*   Entities   */
+import com.vegAppTest.Entities.RevokedToken;
+
+/*   Repositories   */
+import com.vegAppTest.Repositories.RevokedToken_R;
+
+/*   Services   */
+import com.vegAppTest.Security.Service.JwtService;
+import com.vegAppTest.Security.Service.TokenRevocationService;
+
+/*
+ * Revoked tokens through JwTAuthentificationFilter (TokenRevocationService) :
+ * by jti (logout), by subject and issued-at (password change), and the
+ * revocations made by another instance.
+ */
+class TokenRevocationTests extends EmbeddedApplication {
+
+    @Autowired
+    JwtService jwt_service;
+
+    @Autowired
+    TokenRevocationService token_revocation_service;
+
+    @Autowired
+    RevokedToken_R revoked_token_repo;
+
+    @Test
+    void logoutRevokesOnlyThatToken() throws Exception {
+
+        String email = email();
+        String token = register(email);
+        String other_token = bearer(send(HttpMethod.POST, "/auth/authenticate", null,
+                "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"));
+        assertEquals(HttpStatus.OK, gardens(token));
+
+        assertEquals(HttpStatus.NO_CONTENT, send(HttpMethod.POST, "/gardener/logout", token, null).getStatusCode());
+
+        assertEquals(HttpStatus.FORBIDDEN, gardens(token));
+        assertEquals(HttpStatus.OK, gardens(other_token));
+    }
+
+    @Test
+    void passwordChangeRevokesTheOlderTokens() throws Exception {
+
+        String email = email();
+        String token = register(email);
+        /* The revocation spares the tokens of its second : the old token must be from an earlier one */
+        sleepUntilNextSecond();
+
+        ResponseEntity<String> response = send(HttpMethod.PUT, "/gardener/password", token,
+                "{\"password\":\"" + PASSWORD + "\",\"new_password\":\"new password\"}");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String new_token = bearer(response);
+
+        assertEquals(HttpStatus.FORBIDDEN, gardens(token));
+        assertEquals(HttpStatus.OK, gardens(new_token));
+    }
+
+    @Test
+    void wrongPasswordRevokesNothing() throws Exception {
+
+        String token = register(email());
+        sleepUntilNextSecond();
+
+        assertEquals(HttpStatus.FORBIDDEN, send(HttpMethod.PUT, "/gardener/password", token,
+                "{\"password\":\"wrong\",\"new_password\":\"new password\"}").getStatusCode());
+        assertEquals(HttpStatus.OK, gardens(token));
+    }
+
+    @Test
+    void subjectRevocationSparesTheTokensOfItsSecond() {
+
+        String subject = email();
+        long before = System.currentTimeMillis() / 1000 * 1000;
+        token_revocation_service.revokeSubject(subject);
+        long after = System.currentTimeMillis() / 1000 * 1000;
+
+        assertTrue(token_revocation_service.isRevoked(claims(subject, before - 1000)));
+        assertFalse(token_revocation_service.isRevoked(claims(subject, after)));
+        assertFalse(token_revocation_service.isRevoked(claims(email(), before - 1000)));
+    }
+
+    @Test
+    void revocationOfAnotherInstanceIsSeenAfterRefresh() throws Exception {
+
+        String token = register(email());
+        Claims claims = jwt_service.verify(token.substring("Bearer ".length()));
+        assertEquals(HttpStatus.OK, gardens(token));
+
+        /* Written by another instance : not in the memory of this one yet */
+        revoked_token_repo.save(new RevokedToken(claims.getId(), null, null, claims.getExpiration()));
+        assertEquals(HttpStatus.OK, gardens(token));
+
+        token_revocation_service.refresh();
+        assertEquals(HttpStatus.FORBIDDEN, gardens(token));
+    }
+
+    /* Status of an authenticated request with that token */
+    private HttpStatus gardens(String token) {
+        return HttpStatus.valueOf(send(HttpMethod.GET, "/garden", token, null).getStatusCode().value());
+    }
+
+    private static Claims claims(String subject, long issued_at) {
+
+        Claims claims = Jwts.claims();
+        claims.setSubject(subject);
+        claims.setIssuedAt(new Date(issued_at));
+        return claims;
+    }
+
+    private static String email() {
+        return "revocation-" + UUID.randomUUID() + "@vegapp.be";
+    }
+
+    private static void sleepUntilNextSecond() throws InterruptedException {
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+    }
+
+}